@@ -26,6 +26,20 @@ dependencies {
     implementation("org.modelingvalue:immutable-collections:3.0.0-BRANCHED")
     implementation("org.modelingvalue:mvg-json:3.0.0-BRANCHED")
 }
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+tasks.register<Test>("benchmark") {
+    description = "Runs the performance benchmarks."
+    group = "verification"
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+}
 publishing {
     publications {
         create<MavenPublication>("dclare") {
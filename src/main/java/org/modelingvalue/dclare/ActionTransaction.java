@@ -16,6 +16,7 @@
 package org.modelingvalue.dclare;
 
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.UnaryOperator;
@@ -23,6 +24,7 @@ import java.util.function.UnaryOperator;
 import org.modelingvalue.collections.Collection;
 import org.modelingvalue.collections.DefaultMap;
 import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
 import org.modelingvalue.collections.Map;
 import org.modelingvalue.collections.Set;
 import org.modelingvalue.collections.util.Concurrent;
@@ -38,6 +40,7 @@ public class ActionTransaction extends LeafTransaction implements StateMergeHand
     private static final BiFunction<TransactionId, TransactionId, TransactionId> HIGHEST      = (b, a) -> b == null || b.number() < a.number() ? a : b;
 
     private final CurrentState                                                   currentState = new CurrentState();
+    private final Concurrent<Set<Pair<List<Mutable>, TransactionId>>>            changedIds   = Concurrent.of();
     private State                                                                preState;
     private State                                                                postState;
 
@@ -60,9 +63,11 @@ public class ActionTransaction extends LeafTransaction implements StateMergeHand
         TraceTimer.traceBegin(traceId());
         preState = pre;
         currentState.init(pre);
+        changedIds.init(Set.of());
         try {
             LeafTransaction.getContext().run(this, () -> {
                 run(pre, universeTransaction());
+                propagateChangeIds();
                 if (universeTransaction().getConfig().isTraceActions()) {
                     postState = currentState.merge();
                     Map<Object, Map<Setable, Pair<Object, Object>>> diff = preState.diff(postState, o -> o instanceof Mutable, s -> s instanceof Observed && !s.isPlumbing()).toMap(e -> e);
@@ -81,6 +86,7 @@ public class ActionTransaction extends LeafTransaction implements StateMergeHand
             return pre;
         } finally {
             currentState.clear();
+            changedIds.clear();
             preState = null;
             postState = null;
             TraceTimer.traceEnd(traceId());
@@ -105,12 +111,15 @@ public class ActionTransaction extends LeafTransaction implements StateMergeHand
     }
 
     protected State merge() {
+        propagateChangeIds();
         return currentState.merge();
     }
 
     protected void rollback() {
         currentState.clear();
         currentState.init(preState);
+        changedIds.clear();
+        changedIds.init(Set.of());
     }
 
     @Override
@@ -140,6 +149,13 @@ public class ActionTransaction extends LeafTransaction implements StateMergeHand
             } else if (!property.doNotMerge() && !Objects.equals(br, pre)) {
                 if (pre instanceof Mergeable) {
                     po = (T) ((Mergeable) pre).merge(br, po);
+                } else if (property == PrimitiveSetable.BLOCK) {
+                    T merged = (T) PrimitiveBlock.merge(pre, new Object[]{br, po}, 2);
+                    if (merged != null) {
+                        po = merged;
+                    } else {
+                        handleMergeConflict(object, property, pre, br, po);
+                    }
                 } else if (br != null && po != null) {
                     handleMergeConflict(object, property, pre, br, po);
                 }
@@ -184,10 +200,44 @@ public class ActionTransaction extends LeafTransaction implements StateMergeHand
     @SuppressWarnings("rawtypes")
     private final <O, T> void setChanged(O object, Setable<O, T> setable, T postValue) {
         TransactionId txid = action().preserved() ? universeTransaction().setPreserved(object, setable, postValue, action()) : current().transactionId();
-        for (Mutable changed = (Mutable) object; changed != null && !(changed instanceof Universe); changed = dParent(changed)) {
-            TransactionId old = set(changed, Mutable.D_CHANGE_ID, HIGHEST, txid);
-            if (old != null && old.number() >= txid.number()) {
-                break;
+        List<Mutable> ancestors = ancestors((Mutable) object);
+        changedIds.change(s -> s.add(Pair.of(ancestors, txid)));
+    }
+
+    // the chain at the time of the change, so former ancestors are stamped even if the object moves later in this action
+    private List<Mutable> ancestors(Mutable mutable) {
+        List<Mutable> ancestors = List.of();
+        for (Mutable m = mutable; m != null && !(m instanceof Universe); m = dParent(m)) {
+            ancestors = ancestors.add(m);
+        }
+        return ancestors;
+    }
+
+    private void propagateChangeIds() {
+        Set<Pair<List<Mutable>, TransactionId>> changed = changedIds.merge();
+        if (!changed.isEmpty()) {
+            changedIds.set(Set.of());
+            HashMap<Mutable, TransactionId> sweep = new HashMap<>();
+            for (Pair<List<Mutable>, TransactionId> c : changed.sorted((a, b) -> Long.compare(b.b().number(), a.b().number()))) {
+                TransactionId txid = c.b();
+                List<Mutable> ancestors = ancestors(c.a().first());
+                stamp(sweep, c.a(), txid);
+                if (!ancestors.equals(c.a())) {
+                    stamp(sweep, ancestors, txid);
+                }
+            }
+            sweep.forEach((m, txid) -> set(m, Mutable.D_CHANGE_ID, HIGHEST, txid));
+        }
+    }
+
+    private void stamp(HashMap<Mutable, TransactionId> sweep, List<Mutable> ancestors, TransactionId txid) {
+        for (Mutable m : ancestors) {
+            if (!sweep.containsKey(m)) {
+                TransactionId old = current(m, Mutable.D_CHANGE_ID);
+                if (old != null && old.number() >= txid.number()) {
+                    break;
+                }
+                sweep.put(m, txid);
             }
         }
     }
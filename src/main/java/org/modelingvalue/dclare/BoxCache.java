@@ -0,0 +1,48 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import org.modelingvalue.collections.Entry;
+
+/**
+ * A small direct-mapped cache of the property entries of one {@link Setable} with the
+ * {@link SetableModifier#boxCache} modifier. Recurring values, typically boxed numbers, reuse the
+ * cached entry and its boxed value instead of allocating a new entry per set.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+final class BoxCache {
+
+    private static final int               SIZE    = 256;
+
+    private final Setable                  setable;
+    private final Entry<Setable, Object>[] entries = new Entry[SIZE];
+
+    BoxCache(Setable setable) {
+        this.setable = setable;
+    }
+
+    Entry<Setable, Object> entry(Object value) {
+        int h = value.hashCode();
+        int i = (h ^ h >>> 16) & (SIZE - 1);
+        Entry<Setable, Object> e = entries[i];
+        if (e == null || !value.equals(e.getValue())) {
+            e = Entry.of(setable, value);
+            entries[i] = e;
+        }
+        return e;
+    }
+
+}
@@ -0,0 +1,267 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.Objects;
+
+import org.modelingvalue.collections.Collection;
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.Map;
+import org.modelingvalue.collections.Set;
+import org.modelingvalue.collections.util.Mergeable;
+import org.modelingvalue.collections.util.NotMergeableException;
+import org.modelingvalue.collections.util.Pair;
+import org.modelingvalue.collections.util.StringUtil;
+
+/**
+ * A state map that stores the properties of every object in one copy-on-write <code>Object[]</code>
+ * in the {@link SlotLayout} of its class, instead of in a <code>DefaultMap</code> per object.
+ * Properties outside the layout, such as plumbing, stay in a small residual map.
+ * Get, set, diff and merge give the same results as on the {@link StateMap} it is converted from.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class CompactStateMap {
+
+    public static final CompactStateMap EMPTY = new CompactStateMap(Map.of());
+
+    private static final Object         NULL  = new Object();
+
+    public static CompactStateMap of(StateMap stateMap) {
+        return new CompactStateMap(stateMap.map().toMap(e -> Entry.of(e.getKey(), slots(e.getKey(), e.getValue()))));
+    }
+
+    private static Object[] slots(Object object, DefaultMap<Setable, Object> properties) {
+        SlotLayout layout = SlotLayout.of(object);
+        Object[] slots = new Object[layout.size() + 2];
+        slots[0] = layout;
+        DefaultMap<Setable, Object> rest = StateMap.EMPTY_SETABLES_MAP;
+        for (Entry<Setable, Object> e : properties) {
+            int i = layout.slot(e.getKey());
+            if (i >= 0) {
+                slots[i + 1] = e.getValue() != null ? e.getValue() : NULL;
+            } else {
+                rest = rest.put(e);
+            }
+        }
+        slots[slots.length - 1] = rest.isEmpty() ? null : rest;
+        return slots;
+    }
+
+    // per object: [layout, slot 0 .. slot n-1, rest], a null slot holds the default, a null rest holds no other properties
+    private final Map<Object, Object[]> objects;
+
+    private CompactStateMap(Map<Object, Object[]> objects) {
+        this.objects = objects;
+    }
+
+    public int size() {
+        return objects.size();
+    }
+
+    public boolean isEmpty() {
+        return objects.isEmpty();
+    }
+
+    public Collection<?> getObjects() {
+        return objects.toKeys();
+    }
+
+    public <O, T> T get(O object, Getable<O, T> property) {
+        Object[] slots = objects.get(object);
+        return slots != null ? (T) value(slots, property) : property.getDefault();
+    }
+
+    public <O> DefaultMap<Setable, Object> getProperties(O object) {
+        Object[] slots = objects.get(object);
+        return slots != null ? properties(slots) : StateMap.EMPTY_SETABLES_MAP;
+    }
+
+    public <O, T> CompactStateMap set(O object, Setable<O, T> property, T value) {
+        Object[] pre = objects.get(object);
+        Object[] post = with(pre != null ? pre : slots(object, StateMap.EMPTY_SETABLES_MAP), property, value);
+        if (post == pre || (pre == null && isEmpty(post))) {
+            return this;
+        }
+        return new CompactStateMap(isEmpty(post) ? objects.removeKey(object) : objects.put(object, post));
+    }
+
+    /**
+     * Merges the branches into this base map the way {@link State#merge} does without a merge handler:
+     * objects changed in one branch are taken as is, mergeable values are merged and
+     * a property changed in more than one branch throws a {@link NotMergeableException}.
+     */
+    public CompactStateMap merge(CompactStateMap[] branches, int length) {
+        Set<Object> changed = Set.of();
+        for (int i = 0; i < length; i++) {
+            for (Entry<Object, Pair<Object[], Object[]>> d : objects.diff(branches[i].objects)) {
+                changed = changed.add(d.getKey());
+            }
+        }
+        Map<Object, Object[]> merged = objects;
+        for (Object object : changed) {
+            Object[] base = objects.get(object);
+            Object[][] posts = new Object[length][];
+            for (int i = 0; i < length; i++) {
+                posts[i] = branches[i].objects.get(object);
+            }
+            Object[] post = merge(object, base, posts, length);
+            merged = post == null || isEmpty(post) ? merged.removeKey(object) : merged.put(object, post);
+        }
+        return new CompactStateMap(merged);
+    }
+
+    private static Object[] merge(Object object, Object[] base, Object[][] branches, int length) {
+        Object[] touched = base;
+        for (int i = 0; i < length; i++) {
+            if (branches[i] != base) {
+                if (touched != base) {
+                    touched = null;
+                    break;
+                }
+                touched = branches[i];
+            }
+        }
+        if (touched != null || length == 0) {
+            return touched;
+        }
+        Object[] empty = slots(object, StateMap.EMPTY_SETABLES_MAP);
+        Object[] pre = base != null ? base : empty;
+        DefaultMap<Setable, Object> preProps = properties(pre);
+        Set<Setable> setables = Set.of();
+        for (int i = 0; i < length; i++) {
+            if (branches[i] == null) {
+                branches[i] = empty;
+            }
+            setables = setables.addAll(preProps.diff(properties(branches[i])).map(Entry::getKey));
+        }
+        Object[] post = pre;
+        for (Setable setable : setables) {
+            Object v = value(pre, setable);
+            Object[] vs = new Object[length];
+            for (int i = 0; i < length; i++) {
+                vs[i] = value(branches[i], setable);
+            }
+            Object r = v;
+            if (v instanceof Mergeable) {
+                r = ((Mergeable) v).merge(vs, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    if (!Objects.equals(vs[i], v)) {
+                        if (!Objects.equals(r, v)) {
+                            throw new NotMergeableException(object + "." + setable + "= " + v + " -> " + StringUtil.toString(vs));
+                        }
+                        r = vs[i];
+                    }
+                }
+            }
+            post = with(post, setable, r);
+        }
+        return post;
+    }
+
+    private static Object[] with(Object[] slots, Setable property, Object value) {
+        if (Objects.equals(value(slots, property), value)) {
+            return slots;
+        }
+        Object[] post = slots.clone();
+        boolean isDefault = Objects.equals(property.getDefault(), value);
+        int i = ((SlotLayout) post[0]).slot(property);
+        if (i >= 0) {
+            post[i + 1] = isDefault ? null : value != null ? value : NULL;
+        } else {
+            DefaultMap<Setable, Object> rest = rest(post);
+            rest = isDefault ? rest.removeKey(property) : rest.put(property, value);
+            post[post.length - 1] = rest.isEmpty() ? null : rest;
+        }
+        return post;
+    }
+
+    private static boolean isEmpty(Object[] slots) {
+        for (int s = 1; s < slots.length; s++) {
+            if (slots[s] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public StateMap toStateMap() {
+        DefaultMap<Object, DefaultMap<Setable, Object>> map = StateMap.EMPTY_STATE_MAP.map();
+        for (Entry<Object, Object[]> e : objects) {
+            map = map.put(e.getKey(), properties(e.getValue()));
+        }
+        return new StateMap(map);
+    }
+
+    public Collection<Entry<Object, Map<Setable, Pair<Object, Object>>>> diff(CompactStateMap other) {
+        return objects.diff(other.objects).map(d -> {
+            Object[] a = d.getValue().a() != null ? d.getValue().a() : slots(d.getKey(), StateMap.EMPTY_SETABLES_MAP);
+            Object[] b = d.getValue().b() != null ? d.getValue().b() : slots(d.getKey(), StateMap.EMPTY_SETABLES_MAP);
+            Map<Setable, Pair<Object, Object>> diff = a[0] == b[0] ? diff(a, b) : properties(a).diff(properties(b)).toMap(e -> e);
+            return diff.isEmpty() ? null : Entry.of(d.getKey(), diff);
+        }).notNull();
+    }
+
+    private static Map<Setable, Pair<Object, Object>> diff(Object[] a, Object[] b) {
+        SlotLayout layout = (SlotLayout) a[0];
+        Map<Setable, Pair<Object, Object>> diff = Map.of();
+        for (int i = 0; i < layout.size(); i++) {
+            if (!Objects.equals(a[i + 1], b[i + 1])) {
+                Setable setable = layout.setable(i);
+                diff = diff.put(setable, Pair.of(value(a, i, setable), value(b, i, setable)));
+            }
+        }
+        if (a[a.length - 1] != b[b.length - 1]) {
+            for (Entry<Setable, Pair<Object, Object>> e : rest(a).diff(rest(b))) {
+                diff = diff.put(e.getKey(), e.getValue());
+            }
+        }
+        return diff;
+    }
+
+    private static Object value(Object[] slots, Getable property) {
+        int i = ((SlotLayout) slots[0]).slot(property);
+        return i >= 0 ? value(slots, i, property) : rest(slots).get(property);
+    }
+
+    private static Object value(Object[] slots, int i, Getable property) {
+        Object v = slots[i + 1];
+        return v == null ? property.getDefault() : v == NULL ? null : v;
+    }
+
+    private static DefaultMap<Setable, Object> rest(Object[] slots) {
+        DefaultMap<Setable, Object> rest = (DefaultMap<Setable, Object>) slots[slots.length - 1];
+        return rest != null ? rest : StateMap.EMPTY_SETABLES_MAP;
+    }
+
+    private static DefaultMap<Setable, Object> properties(Object[] slots) {
+        SlotLayout layout = (SlotLayout) slots[0];
+        DefaultMap<Setable, Object> properties = rest(slots);
+        for (int i = 0; i < layout.size(); i++) {
+            if (slots[i + 1] != null) {
+                properties = properties.put(layout.setable(i), value(slots, i, layout.setable(i)));
+            }
+        }
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return toStateMap().toString();
+    }
+
+}
@@ -0,0 +1,134 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.modelingvalue.collections.List;
+
+/**
+ * Learns which transaction classes wrote the same property in different parallel branches, keyed
+ * per conflicting pair. Pairs that keep conflicting are put into one scheduling unit, so that
+ * {@link CostModel#partition(List, int, Function)} runs them in the same branch.
+ */
+public class ConflictModel {
+    private static final int                          MAX_NR_OF_ENTRIES = 1 << 14;
+    private static final double                       DECAY             = 0.9;
+    private static final double                       THRESHOLD         = 0.5;
+
+    private final ConcurrentHashMap<Conflict, Double> conflicts         = new ConcurrentHashMap<>();
+
+    private static final class Conflict {
+        private final TransactionClass a;
+        private final TransactionClass b;
+
+        private Conflict(TransactionClass a, TransactionClass b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public int hashCode() {
+            return a.hashCode() ^ b.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof Conflict)) {
+                return false;
+            }
+            Conflict c = (Conflict) obj;
+            return (a.equals(c.a) && b.equals(c.b)) || (a.equals(c.b) && b.equals(c.a));
+        }
+    }
+
+    /**
+     * Records a conflict between every writer of one branch and every writer of another branch.
+     * Once the model is full, only pairs it already knows are reinforced until {@link #decay()} frees
+     * entries again.
+     */
+    public void record(List<? extends List<? extends TransactionClass>> writers) {
+        for (int i = 0; i < writers.size(); i++) {
+            for (int j = i + 1; j < writers.size(); j++) {
+                for (TransactionClass a : writers.get(i)) {
+                    for (TransactionClass b : writers.get(j)) {
+                        if (!a.equals(b)) {
+                            Conflict conflict = new Conflict(a, b);
+                            if (conflicts.size() < MAX_NR_OF_ENTRIES) {
+                                conflicts.merge(conflict, 1.0, Double::sum);
+                            } else {
+                                conflicts.computeIfPresent(conflict, (k, v) -> v + 1.0);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The scheduling unit of each of the given transaction classes: the classes connected by learned
+     * conflicts among them share a representative, all others map to {@code null}.
+     */
+    public <T extends TransactionClass> Function<T, Object> groups(List<T> todo) {
+        Map<TransactionClass, TransactionClass> parents = new HashMap<>();
+        if (!conflicts.isEmpty()) {
+            Set<TransactionClass> members = new HashSet<>();
+            for (T tc : todo) {
+                members.add(tc);
+            }
+            for (Map.Entry<Conflict, Double> e : conflicts.entrySet()) {
+                Conflict c = e.getKey();
+                if (e.getValue() >= THRESHOLD && members.contains(c.a) && members.contains(c.b)) {
+                    parents.put(find(parents, c.a), find(parents, c.b));
+                }
+            }
+        }
+        return parents.isEmpty() ? tc -> null : tc -> parents.containsKey(tc) ? find(parents, tc) : null;
+    }
+
+    private static TransactionClass find(Map<TransactionClass, TransactionClass> parents, TransactionClass tc) {
+        TransactionClass root = tc;
+        for (TransactionClass p = parents.get(root); p != null && !p.equals(root); p = parents.get(root)) {
+            root = p;
+        }
+        parents.putIfAbsent(tc, root);
+        return root;
+    }
+
+    public void decay() {
+        if (!conflicts.isEmpty()) {
+            conflicts.replaceAll((c, score) -> score * DECAY);
+            conflicts.values().removeIf(score -> score < THRESHOLD);
+        }
+    }
+
+    public int size() {
+        return conflicts.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ConflictModel[" + conflicts.size() + "]";
+    }
+}
@@ -19,12 +19,16 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.modelingvalue.collections.Entry;
 import org.modelingvalue.collections.List;
 import org.modelingvalue.collections.Map;
 import org.modelingvalue.collections.QualifiedSet;
@@ -43,12 +47,18 @@ public class ConstantState {
                                                                                  }
                                                                              };
     private static final AtomicReferenceFieldUpdater<Constants, Map> UPDATOR = AtomicReferenceFieldUpdater.newUpdater(Constants.class, Map.class, "constants");
+    private static final ReferenceQueue<Object>                      QUEUE   = new ReferenceQueue<>();
+    private static final Thread                                      REAPER  = reaper();
 
-    private final ReferenceQueue<Object>                             queue   = new ReferenceQueue<>();
-    private final AtomicReference<QualifiedSet<Object, Constants>>   state   = new AtomicReference<>(QualifiedSet.of(Constants::object));
-    private final Thread                                             remover;
+    private final AtomicReference<QualifiedSet<Object, Constants>>[] stripes;
     private final String                                             name;
-    private boolean                                                  stopRequested;
+    private final Consumer<Throwable>                                errorHandler;
+    private final int                                                maxSoftConstants;
+    private final ConcurrentHashMap<Constant, ConstantStatistics>    statistics;
+    private final ConcurrentLinkedQueue<Constants<?>>                softConstants;
+    private final AtomicInteger                                      nrOfSoftConstants;
+    private final ConcurrentHashMap<Object, Map<Constant, Object>>   preloaded;
+    private volatile boolean                                         stopRequested;
 
     private static final class ConstantDepthOverflowException extends RuntimeException {
         private static final long            serialVersionUID = -6980064786088373917L;
@@ -101,6 +111,12 @@ public class ConstantState {
             }
         }
 
+        private class BoundedRef extends DurableRef {
+            private BoundedRef(O referent) {
+                super(referent);
+            }
+        }
+
         private class DurableRef implements Ref<O> {
             private O referent;
 
@@ -127,19 +143,63 @@ public class ConstantState {
         public volatile Map<Constant<O, ?>, Object> constants;
         private final int                           hash;
         private Ref<O>                              ref;
+        private volatile boolean                    used;
 
         public Constants(O object, ReferenceType referenceType, ReferenceQueue<? super O> queue) {
-            ref = referenceType == ReferenceType.weak ? new WeakRef(object, queue) : referenceType == ReferenceType.soft ? new SoftRef(object, queue) : new DurableRef(object);
+            ref = referenceType == ReferenceType.weak ? new WeakRef(object, queue) : referenceType == ReferenceType.soft ? softRef(object, queue) : new DurableRef(object);
             UPDATOR.lazySet(this, Map.of());
             hash = object.hashCode();
         }
 
         protected void upgradeStrongness(ReferenceType referenceType, O object) {
-            ref = referenceType == ReferenceType.soft ? new SoftRef(object, queue) : new DurableRef(object);
+            ref = referenceType == ReferenceType.soft ? softRef(object, QUEUE) : new DurableRef(object);
+            if (isBounded()) {
+                enlist(this);
+            }
+        }
+
+        private Ref<O> softRef(O object, ReferenceQueue<? super O> queue) {
+            return maxSoftConstants > 0 ? new BoundedRef(object) : new SoftRef(object, queue);
+        }
+
+        private boolean isBounded() {
+            return ref instanceof ConstantState.Constants.BoundedRef;
+        }
+
+        private Map<Constant, Object> durableConstants() {
+            Map<Constant, Object> result = Map.of();
+            for (Entry<Constant<O, ?>, Object> e : constants) {
+                if (e.getKey().isDurable()) {
+                    result = result.put(e.getKey(), e.getValue());
+                }
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void evict() {
+            for (Entry<Constant<O, ?>, Object> e : constants) {
+                if (e.getKey().deriver() == null) {
+                    // values that can not be derived again are left to the garbage collector
+                    ref = new SoftRef(ref.get(), QUEUE);
+                    return;
+                }
+            }
+            if (statistics != null) {
+                for (Entry<Constant<O, ?>, Object> e : constants) {
+                    counters(e.getKey()).evicted();
+                }
+            }
+            removeConstants(this);
+            ref.clear();
+        }
+
+        private ConstantState constantState() {
+            return ConstantState.this;
         }
 
         public ReferenceType referenceType() {
-            return ref instanceof ConstantState.Constants.WeakRef ? ReferenceType.weak : ref instanceof ConstantState.Constants.SoftRef ? ReferenceType.soft : ReferenceType.durable;
+            return ref instanceof ConstantState.Constants.WeakRef ? ReferenceType.weak : ref instanceof ConstantState.Constants.SoftRef || isBounded() ? ReferenceType.soft : ReferenceType.durable;
         }
 
         @SuppressWarnings("unchecked")
@@ -153,8 +213,27 @@ public class ConstantState {
             Map<Constant<O, ?>, Object> prev = constants;
             V ist = (V) prev.get(constant);
             if (ist == null) {
-                V soll = deriver == null ? constant.def : derive(leafTransaction, object, constant, deriver);
+                V soll;
+                if (deriver == null) {
+                    soll = constant.def;
+                } else if (statistics != null) {
+                    long t0 = System.nanoTime();
+                    soll = derive(leafTransaction, object, constant, deriver);
+                    counters(constant).derived(System.nanoTime() - t0);
+                } else {
+                    soll = derive(leafTransaction, object, constant, deriver);
+                }
+                if (statistics != null) {
+                    counters(constant).miss();
+                }
                 ist = set(leafTransaction, object, constant, prev, soll == null ? (V) NULL : soll, false);
+            } else {
+                if (statistics != null) {
+                    counters(constant).hit();
+                }
+                if (!used) {
+                    used = true;
+                }
             }
             return ist == NULL ? null : ist;
         }
@@ -260,20 +339,59 @@ public class ConstantState {
     }
 
     public ConstantState(String name, Consumer<Throwable> errorHandler) {
+        this(name, errorHandler, 0);
+    }
+
+    public ConstantState(String name, Consumer<Throwable> errorHandler, int nrOfStripes) {
+        this(name, errorHandler, nrOfStripes, 0);
+    }
+
+    public ConstantState(String name, Consumer<Throwable> errorHandler, int nrOfStripes, int maxSoftConstants) {
+        this(name, errorHandler, nrOfStripes, maxSoftConstants, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConstantState(String name, Consumer<Throwable> errorHandler, int nrOfStripes, int maxSoftConstants, boolean statistics) {
         this.name = name;
-        remover = new Thread(() -> {
-            while (!stopRequested) {
+        this.errorHandler = errorHandler;
+        this.maxSoftConstants = maxSoftConstants;
+        this.statistics = statistics ? new ConcurrentHashMap<>() : null;
+        this.softConstants = new ConcurrentLinkedQueue<>();
+        this.nrOfSoftConstants = new AtomicInteger();
+        this.preloaded = new ConcurrentHashMap<>();
+        int n = nrOfStripes > 0 ? nrOfStripes : 4 * Runtime.getRuntime().availableProcessors();
+        int size = 1;
+        while (size < n) {
+            size <<= 1;
+        }
+        this.stripes = new AtomicReference[size];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AtomicReference<>(QualifiedSet.of(Constants::object));
+        }
+    }
+
+    private static Thread reaper() {
+        Thread reaper = new Thread(() -> {
+            while (true) {
+                Constants<?> constants = null;
                 try {
-                    removeConstants(((Ref<?>) queue.remove()).constants());
+                    constants = ((Ref<?>) QUEUE.remove()).constants();
+                    if (!constants.constantState().stopRequested) {
+                        constants.constantState().removeConstants(constants);
+                    }
                 } catch (InterruptedException e) {
-                    if (!stopRequested) {
-                        errorHandler.accept(new Error("unexpected exception in ConstantState.remover Thread", e));
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Throwable t) {
+                    if (constants != null) {
+                        constants.constantState().errorHandler.accept(new Error("unexpected exception in ConstantState.reaper Thread", t));
                     }
                 }
             }
-        }, "ConstantState.remover");
-        remover.setDaemon(true);
-        remover.start();
+        }, "ConstantState.reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+        return reaper;
     }
 
     @Override
@@ -283,7 +401,83 @@ public class ConstantState {
 
     public void stop() {
         stopRequested = true;
-        remover.interrupt();
+    }
+
+    /**
+     * The hit, miss, eviction and derivation counters of the given constant in this constant state only. Returns
+     * all zeros when this constant state was created without statistics.
+     */
+    public ConstantStatistics statistics(Constant<?, ?> constant) {
+        return statistics != null ? counters(constant) : new ConstantStatistics();
+    }
+
+    private ConstantStatistics counters(Constant<?, ?> constant) {
+        return statistics.computeIfAbsent(constant, c -> new ConstantStatistics());
+    }
+
+    public void clear() {
+        for (AtomicReference<QualifiedSet<Object, Constants>> stripe : stripes) {
+            stripe.set(QualifiedSet.of(Constants::object));
+        }
+        softConstants.clear();
+        nrOfSoftConstants.set(0);
+        preloaded.clear();
+    }
+
+    public Map<Object, Map<Constant, Object>> durableConstants() {
+        Map<Object, Map<Constant, Object>> result = Map.of();
+        for (AtomicReference<QualifiedSet<Object, Constants>> stripe : stripes) {
+            for (Constants<?> constants : stripe.get()) {
+                Object object = constants.ref.get();
+                if (object != null) {
+                    Map<Constant, Object> durable = constants.durableConstants();
+                    if (!durable.isEmpty()) {
+                        result = result.put(object, durable);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public void preload(Object object, Map<Constant, Object> values) {
+        preloaded.put(object, values);
+    }
+
+    public int nrOfSoftConstants() {
+        return nrOfSoftConstants.get();
+    }
+
+    private void enlist(Constants<?> constants) {
+        softConstants.offer(constants);
+        if (nrOfSoftConstants.incrementAndGet() > maxSoftConstants) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        for (int i = 2 * nrOfSoftConstants.get(); i > 0 && nrOfSoftConstants.get() > maxSoftConstants; i--) {
+            Constants<?> constants = softConstants.poll();
+            if (constants == null) {
+                return;
+            } else if (!constants.isBounded()) {
+                nrOfSoftConstants.decrementAndGet();
+            } else if (constants.used) {
+                constants.used = false;
+                softConstants.offer(constants);
+            } else {
+                nrOfSoftConstants.decrementAndGet();
+                constants.evict();
+            }
+        }
+    }
+
+    public int nrOfStripes() {
+        return stripes.length;
+    }
+
+    private AtomicReference<QualifiedSet<Object, Constants>> stripe(int hash) {
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
     }
 
     public <O, V> V get(LeafTransaction leafTransaction, O object, Constant<O, V> constant) {
@@ -316,11 +510,16 @@ public class ConstantState {
 
     @SuppressWarnings("unchecked")
     private <O> Constants<O> getConstants(LeafTransaction leafTransaction, O object, ReferenceType referenceType) {
+        AtomicReference<QualifiedSet<Object, Constants>> state = stripe(object.hashCode());
         QualifiedSet<Object, Constants> prev = state.get();
         Constants constants = prev.get(object);
         if (constants == null) {
             object = leafTransaction.state().canonical(object);
-            constants = new Constants<>(object, referenceType, queue);
+            Map<Constant, Object> loaded = preloaded.isEmpty() ? null : preloaded.remove(object);
+            constants = new Constants<>(object, loaded != null ? ReferenceType.durable : referenceType, QUEUE);
+            if (loaded != null) {
+                UPDATOR.lazySet(constants, loaded);
+            }
             QualifiedSet<Object, Constants> next = prev.add(constants);
             Constants<O> now;
             while (!state.compareAndSet(prev, next)) {
@@ -335,6 +534,9 @@ public class ConstantState {
                 }
                 next = prev.add(constants);
             }
+            if (constants.isBounded()) {
+                enlist(constants);
+            }
         } else if (referenceType.strongness > constants.referenceType().strongness) {
             constants.upgradeStrongness(referenceType, object);
         }
@@ -342,14 +544,14 @@ public class ConstantState {
     }
 
     private void removeConstants(Constants constants) {
+        AtomicReference<QualifiedSet<Object, Constants>> state = stripe(constants.hash);
         QualifiedSet<Object, Constants> prev = state.get();
         Object object = constants.object();
-        constants = prev.get(object);
-        if (constants != null) {
+        if (prev.get(object) == constants) {
             QualifiedSet<Object, Constants> next = prev.removeKey(object);
             while (!state.compareAndSet(prev, next)) {
                 prev = state.get();
-                if (prev.get(object) == null) {
+                if (prev.get(object) != constants) {
                     return;
                 }
                 next = prev.removeKey(object);
@@ -0,0 +1,126 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
+import org.modelingvalue.collections.Map;
+
+/**
+ * Writes the durable constants of a {@link ConstantState} to a file and preloads them into a fresh one,
+ * typically <code>ConstantStore.read(universeTransaction.constantState(), path, codec)</code> right after
+ * constructing a {@link UniverseTransaction} from a stored {@link StateMap}.
+ * Preloaded values are installed when their object is first used; values that can not be decoded,
+ * or whose constant has another {@link IdCodec#version(Constant)}, are dropped and derived again.
+ */
+@SuppressWarnings("rawtypes")
+public final class ConstantStore {
+    private static final int MAGIC   = 0x44434353;
+    private static final int VERSION = 2;
+
+    private ConstantStore() {
+    }
+
+    public static int write(ConstantState constantState, Path path, IdCodec codec) throws IOException {
+        List<Entry<String, List<String[]>>> encoded = List.of();
+        int nr = 0;
+        for (Entry<Object, Map<Constant, Object>> e : constantState.durableConstants()) {
+            String object = codec.encode(e.getKey());
+            if (object != null) {
+                List<String[]> values = List.of();
+                for (Entry<Constant, Object> c : e.getValue()) {
+                    String constant = codec.encode(c.getKey());
+                    String value = c.getValue() == ConstantState.NULL ? null : codec.encode(c.getValue());
+                    if (constant != null && (value != null || c.getValue() == ConstantState.NULL)) {
+                        values = values.add(new String[]{constant, codec.version(c.getKey()), value});
+                    }
+                }
+                if (!values.isEmpty()) {
+                    encoded = encoded.add(Entry.of(object, values));
+                    nr += values.size();
+                }
+            }
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(encoded.size());
+            for (Entry<String, List<String[]>> e : encoded) {
+                writeString(out, e.getKey());
+                out.writeInt(e.getValue().size());
+                for (String[] c : e.getValue()) {
+                    writeString(out, c[0]);
+                    writeString(out, c[1]);
+                    out.writeBoolean(c[2] != null);
+                    if (c[2] != null) {
+                        writeString(out, c[2]);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return nr;
+    }
+
+    public static int read(ConstantState constantState, Path path, IdCodec codec) throws IOException {
+        int nr = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a constant store: " + path);
+            }
+            for (int o = in.readInt(); o > 0; o--) {
+                Object object = codec.decode(readString(in));
+                Map<Constant, Object> values = Map.of();
+                for (int c = in.readInt(); c > 0; c--) {
+                    Object constant = codec.decode(readString(in));
+                    String version = readString(in);
+                    Object value = in.readBoolean() ? codec.decode(readString(in)) : ConstantState.NULL;
+                    if (constant instanceof Constant && ((Constant) constant).isDurable() && version.equals(codec.version((Constant) constant)) && value != null) {
+                        values = values.put((Constant) constant, value);
+                    }
+                }
+                if (object != null && !values.isEmpty()) {
+                    constantState.preload(object, values);
+                    nr += values.size();
+                }
+            }
+        }
+        return nr;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
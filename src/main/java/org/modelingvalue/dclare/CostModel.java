@@ -0,0 +1,138 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import org.modelingvalue.collections.List;
+
+public class CostModel {
+    private static final int                                 MAX_NR_OF_ENTRIES  = 1 << 16;
+    private static final double                              ALPHA              = 0.25;
+    private static final double                              UNKNOWN_NANOS      = 10_000.0;
+    private static final double                              MIN_PARALLEL_NANOS = 50_000.0;
+    private static final double                              MIN_BIN_NANOS      = 20_000.0;
+
+    private final ConcurrentHashMap<TransactionClass, Cost>  nanos              = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<TransactionClass>    clock              = new ConcurrentLinkedQueue<>();
+
+    public void record(TransactionClass tc, long sample) {
+        boolean[] added = new boolean[1];
+        nanos.compute(tc, (k, c) -> {
+            added[0] = c == null;
+            return c == null ? new Cost(sample, false) : new Cost(c.nanos + ALPHA * (sample - c.nanos), true);
+        });
+        if (added[0]) {
+            clock.add(tc);
+            evict();
+        }
+    }
+
+    private void evict() {
+        while (nanos.size() > MAX_NR_OF_ENTRIES) {
+            TransactionClass tc = clock.poll();
+            if (tc == null) {
+                return;
+            }
+            Cost c = nanos.get(tc);
+            if (c != null && c.referenced) {
+                nanos.replace(tc, c, new Cost(c.nanos, false));
+                clock.add(tc);
+            } else if (c != null) {
+                nanos.remove(tc, c);
+            }
+        }
+    }
+
+    public double estimate(TransactionClass tc) {
+        Cost c = nanos.get(tc);
+        return c != null ? c.nanos : UNKNOWN_NANOS;
+    }
+
+    public int size() {
+        return nanos.size();
+    }
+
+    /**
+     * Splits <code>todo</code> over at most <code>nrOfBins</code> bins of about equal estimated cost, keeping each group together.
+     * A batch below <code>MIN_PARALLEL_NANOS</code> stays one bin, and bins below <code>MIN_BIN_NANOS</code> are joined into
+     * one tail bin, so cheap work runs sequentially instead of paying for its own fork and merge.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends TransactionClass> List<List<T>> partition(List<T> todo, int nrOfBins, Function<T, Object> group) {
+        Map<Object, List<T>> units = new LinkedHashMap<>();
+        Map<Object, Double> estimates = new HashMap<>();
+        double total = 0.0;
+        for (T tc : todo) {
+            Object key = group.apply(tc);
+            key = key != null ? key : tc;
+            double estimate = estimate(tc);
+            units.merge(key, List.of(tc), (a, b) -> a.addAll(b));
+            estimates.merge(key, estimate, Double::sum);
+            total += estimate;
+        }
+        if (nrOfBins < 2 || units.size() < 2 || total < MIN_PARALLEL_NANOS) {
+            return List.of(todo);
+        }
+        nrOfBins = Math.min(nrOfBins, units.size());
+        Object[] order = units.keySet().toArray();
+        Arrays.sort(order, (a, b) -> Double.compare(estimates.get(b), estimates.get(a)));
+        List<T>[] bins = new List[nrOfBins];
+        double[] loads = new double[nrOfBins];
+        Arrays.fill(bins, List.of());
+        for (Object key : order) {
+            int least = 0;
+            for (int b = 1; b < nrOfBins; b++) {
+                if (loads[b] < loads[least]) {
+                    least = b;
+                }
+            }
+            bins[least] = bins[least].addAll(units.get(key));
+            loads[least] += estimates.get(key);
+        }
+        List<List<T>> result = List.of();
+        List<T> tail = List.of();
+        for (int b = 0; b < nrOfBins; b++) {
+            if (loads[b] < MIN_BIN_NANOS) {
+                tail = tail.addAll(bins[b]);
+            } else {
+                result = result.add(bins[b]);
+            }
+        }
+        return tail.isEmpty() ? result : result.add(tail);
+    }
+
+    @Override
+    public String toString() {
+        return "CostModel[" + nanos.size() + "]";
+    }
+
+    private static final class Cost {
+        private final double  nanos;
+        private final boolean referenced;
+
+        private Cost(double nanos, boolean referenced) {
+            this.nanos = nanos;
+            this.referenced = referenced;
+        }
+    }
+}
@@ -25,6 +25,13 @@ public class DclareConfig {
     private static final int     MAX_NR_OF_OBSERVERS_DEFAULT     = 1000;
     private static final int     MAX_IN_IN_QUEUE_DEFAULT         = 100;
     private static final int     MAX_NR_OF_HISTORY_DEFAULT       = 64;
+    private static final int     MAX_BATCH_SIZE_DEFAULT          = 1;
+    private static final long    MAX_BATCH_WAIT_MICROS_DEFAULT   = 0L;
+    private static final int     POOL_PARALLELISM_DEFAULT        = 0;
+    private static final int     CONSTANT_STRIPES_DEFAULT        = 0;
+    private static final int     MAX_SOFT_CONSTANTS_DEFAULT      = 0;
+    private static final long    HISTORY_BUDGET_DEFAULT          = 0L;
+    private static final int     HISTORY_CHECKPOINT_DEFAULT      = 16;
 
     //============================================================================
     private static final boolean DEV_MODE                        = Boolean.getBoolean("DEV_MODE");
@@ -42,6 +49,18 @@ public class DclareConfig {
     private static final int     MAX_NR_OF_OBSERVERS             = Integer.getInteger("MAX_NR_OF_OBSERVERS", MAX_NR_OF_OBSERVERS_DEFAULT);
     private static final int     MAX_IN_IN_QUEUE                 = Integer.getInteger("MAX_IN_IN_QUEUE", MAX_IN_IN_QUEUE_DEFAULT);
     private static final int     MAX_NR_OF_HISTORY               = Integer.getInteger("MAX_NR_OF_HISTORY", MAX_NR_OF_HISTORY_DEFAULT) + 3;
+    private static final int     MAX_BATCH_SIZE                  = Integer.getInteger("MAX_BATCH_SIZE", MAX_BATCH_SIZE_DEFAULT);
+    private static final long    MAX_BATCH_WAIT_MICROS           = Long.getLong("MAX_BATCH_WAIT_MICROS", MAX_BATCH_WAIT_MICROS_DEFAULT);
+    private static final int     POOL_PARALLELISM                = Integer.getInteger("POOL_PARALLELISM", POOL_PARALLELISM_DEFAULT);
+    private static final boolean COST_BASED_SCHEDULING           = Boolean.getBoolean("COST_BASED_SCHEDULING");
+    private static final boolean CONFLICT_LEARNING               = Boolean.getBoolean("CONFLICT_LEARNING");
+    private static final boolean INCREMENTAL_ORPHANS             = Boolean.getBoolean("INCREMENTAL_ORPHANS");
+    private static final int     CONSTANT_STRIPES                = Integer.getInteger("CONSTANT_STRIPES", CONSTANT_STRIPES_DEFAULT);
+    private static final int     MAX_SOFT_CONSTANTS              = Integer.getInteger("MAX_SOFT_CONSTANTS", MAX_SOFT_CONSTANTS_DEFAULT);
+    private static final long    HISTORY_BUDGET                  = Long.getLong("HISTORY_BUDGET", HISTORY_BUDGET_DEFAULT);
+    private static final int     HISTORY_CHECKPOINT              = Integer.getInteger("HISTORY_CHECKPOINT", HISTORY_CHECKPOINT_DEFAULT);
+    private static final boolean CONSTANT_STATISTICS             = Boolean.getBoolean("CONSTANT_STATISTICS");
+    private static final boolean DIRTY_TREE_SCHEDULING           = Boolean.getBoolean("DIRTY_TREE_SCHEDULING");
 
     //============================================================================
     private final boolean        devMode;
@@ -59,6 +78,18 @@ public class DclareConfig {
     private final int            maxNrOfObserved;
     private final int            maxNrOfObservers;
     private final int            maxNrOfHistory;
+    private final int            maxBatchSize;
+    private final long           maxBatchWaitMicros;
+    private final int            poolParallelism;
+    private final boolean        costBasedScheduling;
+    private final boolean        conflictLearning;
+    private final boolean        incrementalOrphans;
+    private final int            constantStripes;
+    private final int            maxSoftConstants;
+    private final long           historyBudget;
+    private final int            historyCheckpoint;
+    private final boolean        constantStatistics;
+    private final boolean        dirtyTreeScheduling;
 
     //============================================================================
     public DclareConfig() {
@@ -77,9 +108,21 @@ public class DclareConfig {
         this.maxNrOfObserved = MAX_NR_OF_OBSERVED;
         this.maxNrOfObservers = MAX_NR_OF_OBSERVERS;
         this.maxNrOfHistory = MAX_NR_OF_HISTORY;
-    }
-
-    protected DclareConfig(boolean devMode, boolean checkOrphanState, boolean runSequential, boolean traceUniverse, boolean traceMutable, boolean traceMatching, boolean traceActions, boolean traceRippleOut, boolean traceDerivation, int maxInInQueue, int maxTotalNrOfChanges, int maxNrOfChanges, int maxNrOfObserved, int maxNrOfObservers, int maxNrOfHistory) {
+        this.maxBatchSize = MAX_BATCH_SIZE;
+        this.maxBatchWaitMicros = MAX_BATCH_WAIT_MICROS;
+        this.poolParallelism = POOL_PARALLELISM;
+        this.costBasedScheduling = COST_BASED_SCHEDULING;
+        this.conflictLearning = CONFLICT_LEARNING;
+        this.incrementalOrphans = INCREMENTAL_ORPHANS;
+        this.constantStripes = CONSTANT_STRIPES;
+        this.maxSoftConstants = MAX_SOFT_CONSTANTS;
+        this.historyBudget = HISTORY_BUDGET;
+        this.historyCheckpoint = HISTORY_CHECKPOINT;
+        this.constantStatistics = CONSTANT_STATISTICS;
+        this.dirtyTreeScheduling = DIRTY_TREE_SCHEDULING;
+    }
+
+    protected DclareConfig(boolean devMode, boolean checkOrphanState, boolean runSequential, boolean traceUniverse, boolean traceMutable, boolean traceMatching, boolean traceActions, boolean traceRippleOut, boolean traceDerivation, int maxInInQueue, int maxTotalNrOfChanges, int maxNrOfChanges, int maxNrOfObserved, int maxNrOfObservers, int maxNrOfHistory, int maxBatchSize, long maxBatchWaitMicros, int poolParallelism, boolean costBasedScheduling, boolean conflictLearning, boolean incrementalOrphans, int constantStripes, int maxSoftConstants, long historyBudget, int historyCheckpoint, boolean constantStatistics, boolean dirtyTreeScheduling) {
         this.devMode = devMode;
         this.checkOrphanState = checkOrphanState;
         this.runSequential = runSequential;
@@ -95,10 +138,22 @@ public class DclareConfig {
         this.maxNrOfObserved = maxNrOfObserved;
         this.maxNrOfObservers = maxNrOfObservers;
         this.maxNrOfHistory = maxNrOfHistory;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchWaitMicros = maxBatchWaitMicros;
+        this.poolParallelism = poolParallelism;
+        this.costBasedScheduling = costBasedScheduling;
+        this.conflictLearning = conflictLearning;
+        this.incrementalOrphans = incrementalOrphans;
+        this.constantStripes = constantStripes;
+        this.maxSoftConstants = maxSoftConstants;
+        this.historyBudget = historyBudget;
+        this.historyCheckpoint = historyCheckpoint;
+        this.constantStatistics = constantStatistics;
+        this.dirtyTreeScheduling = dirtyTreeScheduling;
     }
 
-    protected DclareConfig create(boolean devMode, boolean checkOrphanState, boolean runSequential, boolean traceUniverse, boolean traceMutable, boolean traceMatching, boolean traceActions, boolean traceRippleOut, boolean traceDerivation, int maxInInQueue, int maxTotalNrOfChanges, int maxNrOfChanges, int maxNrOfObserved, int maxNrOfObservers, int maxNrOfHistory) {
-        return new DclareConfig(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+    protected DclareConfig create(boolean devMode, boolean checkOrphanState, boolean runSequential, boolean traceUniverse, boolean traceMutable, boolean traceMatching, boolean traceActions, boolean traceRippleOut, boolean traceDerivation, int maxInInQueue, int maxTotalNrOfChanges, int maxNrOfChanges, int maxNrOfObserved, int maxNrOfObservers, int maxNrOfHistory, int maxBatchSize, long maxBatchWaitMicros, int poolParallelism, boolean costBasedScheduling, boolean conflictLearning, boolean incrementalOrphans, int constantStripes, int maxSoftConstants, long historyBudget, int historyCheckpoint, boolean constantStatistics, boolean dirtyTreeScheduling) {
+        return new DclareConfig(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     //============================================================================
@@ -111,12 +166,12 @@ public class DclareConfig {
             return false;
         }
         DclareConfig that = (DclareConfig) o;
-        return devMode == that.devMode && checkOrphanState == that.checkOrphanState && runSequential == that.runSequential && traceUniverse == that.traceUniverse && traceMutable == that.traceMutable && traceMatching == that.traceMatching && traceActions == that.traceActions && traceRippleOut == that.traceRippleOut && traceDerivation == that.traceDerivation && maxInInQueue == that.maxInInQueue && maxTotalNrOfChanges == that.maxTotalNrOfChanges && maxNrOfChanges == that.maxNrOfChanges && maxNrOfObserved == that.maxNrOfObserved && maxNrOfObservers == that.maxNrOfObservers && maxNrOfHistory == that.maxNrOfHistory;
+        return devMode == that.devMode && checkOrphanState == that.checkOrphanState && runSequential == that.runSequential && traceUniverse == that.traceUniverse && traceMutable == that.traceMutable && traceMatching == that.traceMatching && traceActions == that.traceActions && traceRippleOut == that.traceRippleOut && traceDerivation == that.traceDerivation && maxInInQueue == that.maxInInQueue && maxTotalNrOfChanges == that.maxTotalNrOfChanges && maxNrOfChanges == that.maxNrOfChanges && maxNrOfObserved == that.maxNrOfObserved && maxNrOfObservers == that.maxNrOfObservers && maxNrOfHistory == that.maxNrOfHistory && maxBatchSize == that.maxBatchSize && maxBatchWaitMicros == that.maxBatchWaitMicros && poolParallelism == that.poolParallelism && costBasedScheduling == that.costBasedScheduling && conflictLearning == that.conflictLearning && incrementalOrphans == that.incrementalOrphans && constantStripes == that.constantStripes && maxSoftConstants == that.maxSoftConstants && historyBudget == that.historyBudget && historyCheckpoint == that.historyCheckpoint && constantStatistics == that.constantStatistics && dirtyTreeScheduling == that.dirtyTreeScheduling;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return Objects.hash(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     //============================================================================
@@ -126,63 +181,111 @@ public class DclareConfig {
     //
 
     public DclareConfig withDevMode(boolean devMode) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withCheckOrphanState(boolean checkOrphanState) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withRunSequential(boolean runSequential) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withTraceUniverse(boolean traceUniverse) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withTraceMutable(boolean traceMutable) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withTraceMatching(boolean traceMatching) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withTraceActions(boolean traceActions) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withTraceRippleOut(boolean traceRippleOut) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withTraceDerivation(boolean traceDerivation) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withMaxInInQueue(int maxInInQueue) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withMaxTotalNrOfChanges(int maxTotalNrOfChanges) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withMaxNrOfChanges(int maxNrOfChanges) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withMaxNrOfObserved(int maxNrOfObserved) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withMaxNrOfObservers(int maxNrOfObservers) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     public DclareConfig withMaxNrOfHistory(int maxNrOfHistory) {
-        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory);
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withMaxBatchSize(int maxBatchSize) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withMaxBatchWaitMicros(long maxBatchWaitMicros) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withPoolParallelism(int poolParallelism) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withCostBasedScheduling(boolean costBasedScheduling) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withConflictLearning(boolean conflictLearning) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withIncrementalOrphans(boolean incrementalOrphans) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withConstantStripes(int constantStripes) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withMaxSoftConstants(int maxSoftConstants) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withHistoryBudget(long historyBudget) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withHistoryCheckpoint(int historyCheckpoint) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withConstantStatistics(boolean constantStatistics) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
+    }
+
+    public DclareConfig withDirtyTreeScheduling(boolean dirtyTreeScheduling) {
+        return create(devMode, checkOrphanState, runSequential, traceUniverse, traceMutable, traceMatching, traceActions, traceRippleOut, traceDerivation, maxInInQueue, maxTotalNrOfChanges, maxNrOfChanges, maxNrOfObserved, maxNrOfObservers, maxNrOfHistory, maxBatchSize, maxBatchWaitMicros, poolParallelism, costBasedScheduling, conflictLearning, incrementalOrphans, constantStripes, maxSoftConstants, historyBudget, historyCheckpoint, constantStatistics, dirtyTreeScheduling);
     }
 
     //============================================================================
@@ -246,4 +349,52 @@ public class DclareConfig {
     public int getMaxNrOfHistory() {
         return maxNrOfHistory;
     }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxBatchWaitMicros() {
+        return maxBatchWaitMicros;
+    }
+
+    public int getPoolParallelism() {
+        return poolParallelism;
+    }
+
+    public boolean isCostBasedScheduling() {
+        return costBasedScheduling;
+    }
+
+    public boolean isConflictLearning() {
+        return conflictLearning;
+    }
+
+    public boolean isIncrementalOrphans() {
+        return incrementalOrphans;
+    }
+
+    public int getConstantStripes() {
+        return constantStripes;
+    }
+
+    public int getMaxSoftConstants() {
+        return maxSoftConstants;
+    }
+
+    public long getHistoryBudget() {
+        return historyBudget;
+    }
+
+    public int getHistoryCheckpoint() {
+        return historyCheckpoint;
+    }
+
+    public boolean isConstantStatistics() {
+        return constantStatistics;
+    }
+
+    public boolean isDirtyTreeScheduling() {
+        return dirtyTreeScheduling;
+    }
 }
@@ -0,0 +1,227 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.modelingvalue.collections.Collection;
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
+import org.modelingvalue.collections.Map;
+import org.modelingvalue.collections.Set;
+import org.modelingvalue.collections.util.Pair;
+
+/**
+ * A write-ahead log of the deltas committed by a universe, attached with
+ * <code>universeTransaction.addDiffHandler("log", deltaLog)</code>.
+ * Every delta is appended as a checksummed record to a memory mapped segment, the segment is forced
+ * to disk after every <code>syncEvery</code> records, at the latest <code>maxLatencyMillis</code> after a record
+ * was appended, and on {@link #close()}. Undo and redo are logged as the delta between the states they switch between.
+ * A changed property whose value can not be encoded is logged as a removal of that property.
+ * {@link #recover(Path, IdCodec)} replays the segments on top of the last snapshot. The replay stops at the
+ * first torn or corrupt record: that segment is truncated there and everything after it is moved aside to
+ * files ending in <code>.corrupt</code>. {@link #compact()} folds the segments into a new snapshot.
+ */
+@SuppressWarnings("rawtypes")
+public class DeltaLog implements StateDeltaHandler, AutoCloseable {
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final String PREFIX   = "segment-";
+    private static final String SUFFIX   = ".log";
+    private static final String CORRUPT  = ".corrupt";
+    private static final int    HEADER   = 8;
+    private static final long   LATENCY  = 100;
+
+    private final Path          dir;
+    private final IdCodec       codec;
+    private final int           segmentSize;
+    private final int           syncEvery;
+    private final Timer         timer;
+    private MappedByteBuffer    segment;
+    private long                segmentNr;
+    private int                 unsynced;
+
+    public DeltaLog(Path dir, IdCodec codec, int segmentSize, int syncEvery) throws IOException {
+        this(dir, codec, segmentSize, syncEvery, LATENCY);
+    }
+
+    public DeltaLog(Path dir, IdCodec codec, int segmentSize, int syncEvery, long maxLatencyMillis) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        this.syncEvery = syncEvery;
+        List<Path> segments = segments(dir);
+        this.segmentNr = segments.isEmpty() ? 0 : nr(segments.last());
+        this.timer = maxLatencyMillis > 0 ? new Timer("DeltaLog-sync", true) : null;
+        if (timer != null) {
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    sync();
+                }
+            }, maxLatencyMillis, maxLatencyMillis);
+        }
+    }
+
+    @Override
+    public void handleDelta(State pre, State post, boolean inSync, DefaultMap<Object, Set<Setable>> setted) {
+        try {
+            byte[] record = encode(pre, post);
+            if (record != null) {
+                append(record);
+            }
+        } catch (IOException e) {
+            throw new Error("could not append to delta log " + dir, e);
+        }
+    }
+
+    private byte[] encode(State pre, State post) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StateMapStore.Output out = new StateMapStore.Output(Channels.newChannel(bytes), codec);
+        int nr = 0;
+        for (Entry<Object, Map<Setable, Pair<Object, Object>>> e : pre.diff(post)) {
+            nr += out.writeDelta(e.getKey(), e.getValue().map(d -> Entry.of(d.getKey(), d.getValue().b())).toList());
+        }
+        out.writeVarInt(0);
+        out.flush();
+        return nr > 0 ? bytes.toByteArray() : null;
+    }
+
+    private synchronized void append(byte[] record) throws IOException {
+        if (segment == null || segment.remaining() < HEADER + record.length) {
+            nextSegment(HEADER + record.length);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        segment.putInt(record.length);
+        segment.putInt((int) crc.getValue());
+        segment.put(record);
+        if (++unsynced >= syncEvery) {
+            sync();
+        }
+    }
+
+    private void nextSegment(int minSize) throws IOException {
+        release();
+        segmentNr++;
+        try (FileChannel channel = FileChannel.open(dir.resolve(String.format("%s%012d%s", PREFIX, segmentNr, SUFFIX)), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(MapMode.READ_WRITE, 0, Math.max(segmentSize, minSize));
+        }
+    }
+
+    public synchronized void sync() {
+        if (segment != null && unsynced > 0) {
+            segment.force();
+            unsynced = 0;
+        }
+    }
+
+    private void release() {
+        sync();
+        MappedBuffers.unmap(segment);
+        segment = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.cancel();
+        }
+        release();
+    }
+
+    public synchronized StateMap compact() throws IOException {
+        release();
+        StateMap state = recover(dir, codec);
+        List<Path> replayed = segments(dir);
+        StateMapStore.write(state, dir.resolve(SNAPSHOT), codec);
+        for (Path path : replayed) {
+            Files.delete(path);
+        }
+        return state;
+    }
+
+    public static StateMap recover(Path dir, IdCodec codec) throws IOException {
+        Path snapshot = dir.resolve(SNAPSHOT);
+        DefaultMap<Object, DefaultMap<Setable, Object>> map = (Files.exists(snapshot) ? StateMapStore.read(snapshot, codec) : StateMap.EMPTY_STATE_MAP).map();
+        List<Path> segments = segments(dir);
+        for (int s = 0; s < segments.size(); s++) {
+            Path path = segments.get(s);
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            while (buffer.remaining() >= HEADER) {
+                int position = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length == 0 && checksum == 0) {
+                    break;
+                }
+                byte[] record = length > 0 && length <= buffer.remaining() ? new byte[length] : null;
+                if (record != null) {
+                    buffer.get(record);
+                    CRC32 crc = new CRC32();
+                    crc.update(record);
+                    if ((int) crc.getValue() != checksum) {
+                        record = null;
+                    }
+                }
+                if (record == null) {
+                    truncate(path, position, segments.sublist(s + 1, segments.size()));
+                    return new StateMap(map);
+                }
+                map = new StateMapStore.Input(Channels.newChannel(new ByteArrayInputStream(record)), codec).readObjects(map);
+            }
+        }
+        return new StateMap(map);
+    }
+
+    private static void truncate(Path segment, int position, List<Path> later) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            try (FileChannel corrupt = FileChannel.open(segment.resolveSibling(segment.getFileName() + CORRUPT), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.transferTo(position, channel.size() - position, corrupt);
+            }
+            channel.truncate(position);
+        }
+        for (Path path : later) {
+            Files.move(path, path.resolveSibling(path.getFileName() + CORRUPT), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return Collection.of(files.filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX)).sorted()).toList();
+        }
+    }
+
+    private static long nr(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
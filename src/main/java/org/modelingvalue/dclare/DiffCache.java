@@ -0,0 +1,87 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.modelingvalue.collections.Collection;
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
+import org.modelingvalue.collections.util.Pair;
+
+/**
+ * The object-level diffs of (pre, post) state pairs that several delta handlers read in the same
+ * round. Only pairs announced with {@link #share(StateMap, StateMap)} are cached, and their diff is
+ * computed on the first read. Diffs of any other pair stay lazy and uncached. The consistency check, the orphan
+ * sweep, the imperative transactions and the diff handlers all share their pair, and the universe clears the
+ * cache at the end of every cycle so it never keeps the states of earlier cycles alive.
+ */
+@SuppressWarnings("rawtypes")
+public class DiffCache {
+    private static final int                    MAX_NR_OF_PAIRS = 4;
+
+    private final AtomicReference<List<Shared>> cache           = new AtomicReference<>(List.of());
+
+    private static final class Shared {
+        private final DefaultMap<Object, DefaultMap<Setable, Object>>                                         pre;
+        private final DefaultMap<Object, DefaultMap<Setable, Object>>                                         post;
+        private volatile List<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> diff;
+
+        private Shared(DefaultMap<Object, DefaultMap<Setable, Object>> pre, DefaultMap<Object, DefaultMap<Setable, Object>> post) {
+            this.pre = pre;
+            this.post = post;
+        }
+
+        private List<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> diff() {
+            List<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> d = diff;
+            if (d == null) {
+                d = pre.diff(post).toList();
+                diff = d;
+            }
+            return d;
+        }
+    }
+
+    public void share(StateMap pre, StateMap post) {
+        DefaultMap<Object, DefaultMap<Setable, Object>> preMap = pre.map();
+        DefaultMap<Object, DefaultMap<Setable, Object>> postMap = post.map();
+        if (preMap != postMap) {
+            cache.updateAndGet(l -> {
+                if (l.anyMatch(s -> s.pre == preMap && s.post == postMap)) {
+                    return l;
+                }
+                l = l.prepend(new Shared(preMap, postMap));
+                return l.size() > MAX_NR_OF_PAIRS ? l.removeLast() : l;
+            });
+        }
+    }
+
+    public Collection<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> diff(StateMap pre, StateMap post) {
+        DefaultMap<Object, DefaultMap<Setable, Object>> preMap = pre.map();
+        DefaultMap<Object, DefaultMap<Setable, Object>> postMap = post.map();
+        for (Shared shared : cache.get()) {
+            if (shared.pre == preMap && shared.post == postMap) {
+                return shared.diff();
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        cache.set(List.of());
+    }
+}
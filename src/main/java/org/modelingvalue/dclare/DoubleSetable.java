@@ -0,0 +1,55 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+/**
+ * A <code>double</code> property that is read and written without boxing, see {@link PrimitiveSetable}.
+ */
+public final class DoubleSetable<O> extends PrimitiveSetable<O> {
+
+    public static <C> DoubleSetable<C> of(Object id, double def) {
+        return new DoubleSetable<>(id, def);
+    }
+
+    private final double def;
+
+    private DoubleSetable(Object id, double def) {
+        super(id);
+        this.def = def;
+    }
+
+    public double getDefault() {
+        return def;
+    }
+
+    @Override
+    protected long defaultBits() {
+        return Double.doubleToRawLongBits(def);
+    }
+
+    public double getDouble(O object) {
+        return Double.longBitsToDouble(bits(object));
+    }
+
+    public double getDouble(IState state, O object) {
+        return Double.longBitsToDouble(bits(state, object));
+    }
+
+    public void setDouble(O object, double value) {
+        setBits(object, Double.doubleToRawLongBits(value));
+    }
+
+}
@@ -0,0 +1,136 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
+
+/**
+ * A memory mapped file that holds the oldest entries of the history of a universe as reverse deltas,
+ * installed with {@link UniverseTransaction#setHistoryArchive(HistoryArchive)}.
+ * Entries that no longer fit in the in-memory history are pushed here instead of being dropped and are
+ * popped again when {@link UniverseTransaction#backward()} reaches them. Only entries of which every object,
+ * setable and value can be encoded with the {@link IdCodec} are archived, the archive ends at the first entry that can not.
+ * The file is mapped once and the mapping is doubled when a record does not fit, so it is limited to 2GB.
+ * Archived states are not part of {@link UniverseTransaction#longHistory()}.
+ */
+@SuppressWarnings("rawtypes")
+public class HistoryArchive implements AutoCloseable {
+    private final Path              file;
+    private final FileChannel       channel;
+    private final IdCodec           codec;
+    private static final int        INITIAL = 1 << 16;
+
+    private final ArrayList<long[]> records = new ArrayList<>();
+    private MappedByteBuffer        mapping;
+    private long                    end;
+
+    public HistoryArchive(Path file, IdCodec codec) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.codec = codec;
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+    synchronized boolean push(List<Entry<Object, DefaultMap<Setable, Object>>> delta) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            StateMapStore.Output out = new StateMapStore.Output(Channels.newChannel(bytes), codec);
+            for (Entry<Object, DefaultMap<Setable, Object>> e : delta) {
+                if (!out.encodable(e.getKey(), e.getValue())) {
+                    return false;
+                }
+            }
+            for (Entry<Object, DefaultMap<Setable, Object>> e : delta) {
+                out.writeObject(e.getKey(), e.getValue());
+            }
+            out.writeVarInt(0);
+            out.flush();
+            byte[] record = bytes.toByteArray();
+            ByteBuffer buffer = mapping(end + record.length).duplicate();
+            buffer.position((int) end);
+            buffer.put(record);
+            records.add(new long[]{end, record.length});
+            end += record.length;
+            return true;
+        } catch (IOException e) {
+            throw new Error("could not archive history in " + file, e);
+        }
+    }
+
+    private MappedByteBuffer mapping(long size) throws IOException {
+        if (mapping == null || mapping.capacity() < size) {
+            long capacity = mapping == null ? INITIAL : mapping.capacity();
+            while (capacity < size) {
+                capacity *= 2;
+            }
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("history archive " + file + " exceeds 2GB");
+            }
+            MappedBuffers.unmap(mapping);
+            mapping = channel.map(MapMode.READ_WRITE, 0, capacity);
+        }
+        return mapping;
+    }
+
+    synchronized void clear() {
+        records.clear();
+        end = 0;
+    }
+
+    private List<Entry<Object, DefaultMap<Setable, Object>>> get(int i) {
+        long[] record = records.get(i);
+        try {
+            ByteBuffer buffer = mapping.duplicate();
+            buffer.position((int) record[0]);
+            byte[] bytes = new byte[(int) record[1]];
+            buffer.get(bytes);
+            return new StateMapStore.Input(Channels.newChannel(new ByteArrayInputStream(bytes)), codec).readReplacements();
+        } catch (IOException e) {
+            throw new Error("could not read history from " + file, e);
+        }
+    }
+
+    synchronized List<Entry<Object, DefaultMap<Setable, Object>>> pop() {
+        List<Entry<Object, DefaultMap<Setable, Object>>> delta = get(records.size() - 1);
+        end = records.remove(records.size() - 1)[0];
+        return delta;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        records.clear();
+        MappedBuffers.unmap(mapping);
+        mapping = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,51 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.function.Function;
+
+/**
+ * Maps the objects, setables and values of a model to portable string ids and back.
+ * {@link #encode(Object)} returns <code>null</code> for objects that can not be encoded,
+ * these are left out of anything that is written with this codec.
+ */
+public interface IdCodec {
+
+    String encode(Object object);
+
+    Object decode(String id);
+
+    /**
+     * The version of the deriver of a constant, stored values of constants with a different version are dropped and derived again.
+     */
+    default String version(Constant<?, ?> constant) {
+        return "";
+    }
+
+    static IdCodec of(Function<Object, String> encoder, Function<String, Object> decoder) {
+        return new IdCodec() {
+            @Override
+            public String encode(Object object) {
+                return encoder.apply(object);
+            }
+
+            @Override
+            public Object decode(String id) {
+                return decoder.apply(id);
+            }
+        };
+    }
+}
@@ -140,6 +140,7 @@ public class ImperativeTransaction extends LeafTransaction {
             }
         }
         imper = state.setState(dclare);
+        universeTransaction().diffCache().share(imper, dclare);
         diffHandler.handleDelta(imper, dclare, insync, finalAllSetted);
     }
 
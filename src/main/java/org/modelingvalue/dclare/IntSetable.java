@@ -0,0 +1,55 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+/**
+ * A <code>int</code> property that is read and written without boxing, see {@link PrimitiveSetable}.
+ */
+public final class IntSetable<O> extends PrimitiveSetable<O> {
+
+    public static <C> IntSetable<C> of(Object id, int def) {
+        return new IntSetable<>(id, def);
+    }
+
+    private final int def;
+
+    private IntSetable(Object id, int def) {
+        super(id);
+        this.def = def;
+    }
+
+    public int getDefault() {
+        return def;
+    }
+
+    @Override
+    protected long defaultBits() {
+        return (long) def;
+    }
+
+    public int getInt(O object) {
+        return (int) bits(object);
+    }
+
+    public int getInt(IState state, O object) {
+        return (int) bits(state, object);
+    }
+
+    public void setInt(O object, int value) {
+        setBits(object, (long) value);
+    }
+
+}
@@ -83,6 +83,9 @@ public abstract class LeafTransaction extends Transaction {
 
     protected <O, T> void changed(O object, Setable<O, T> setable, T preValue, T postValue) {
         setable.changed(this, object, preValue, postValue);
+        if (object instanceof Mutable && universeTransaction().getConfig().isIncrementalOrphans() && dParent((Mutable) object) == null) {
+            universeTransaction().orphanCandidate((Mutable) object);
+        }
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -98,17 +101,18 @@ public abstract class LeafTransaction extends Transaction {
     }
 
     protected <O extends Mutable> void trigger(O target, Action<O> action, Priority priority) {
+        boolean dirtyTree = universeTransaction().getConfig().isDirtyTreeScheduling();
         Mutable object = target;
-        set(object, priority.actions, Set::add, action);
+        mark(dirtyTree, object, priority.actions, action, true);
         for (int i = priority.ordinal() + 1; i < NON_SCHEDULED.length; i++) {
-            set(object, NON_SCHEDULED[i].actions, Set::remove, action);
+            mark(dirtyTree, object, NON_SCHEDULED[i].actions, action, false);
         }
         Mutable container = dParent(object);
         while (container != null && !ancestorEqualsMutable(object)) {
-            set(container, priority.children, Set::add, object);
+            mark(dirtyTree, container, priority.children, object, true);
             for (int i = priority.ordinal() + 1; i < NON_SCHEDULED.length; i++) {
                 if (current(object, NON_SCHEDULED[i].actions).isEmpty() && current(object, NON_SCHEDULED[i].children).isEmpty()) {
-                    set(container, NON_SCHEDULED[i].children, Set::remove, object);
+                    mark(dirtyTree, container, NON_SCHEDULED[i].children, object, false);
                 }
             }
             object = container;
@@ -116,6 +120,19 @@ public abstract class LeafTransaction extends Transaction {
         }
     }
 
+    // With dirty-tree scheduling the queued sets are read before they are written, so the walk through an already dirty
+    // subtree only reads and does not set every level again. The resulting state is the same as with the plain walk.
+    private <T extends TransactionClass> void mark(boolean dirtyTree, Mutable object, Priority.Queued<T> queued, T element, boolean add) {
+        if (dirtyTree && current(object, queued).contains(element) == add) {
+            return;
+        }
+        if (add) {
+            set(object, queued, Set::add, element);
+        } else {
+            set(object, queued, Set::remove, element);
+        }
+    }
+
     private boolean ancestorEqualsMutable(Mutable object) {
         MutableTransaction mt = parent();
         while (mt != null && !mt.mutable().equals(object)) {
@@ -0,0 +1,55 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+/**
+ * A <code>long</code> property that is read and written without boxing, see {@link PrimitiveSetable}.
+ */
+public final class LongSetable<O> extends PrimitiveSetable<O> {
+
+    public static <C> LongSetable<C> of(Object id, long def) {
+        return new LongSetable<>(id, def);
+    }
+
+    private final long def;
+
+    private LongSetable(Object id, long def) {
+        super(id);
+        this.def = def;
+    }
+
+    public long getDefault() {
+        return def;
+    }
+
+    @Override
+    protected long defaultBits() {
+        return def;
+    }
+
+    public long getLong(O object) {
+        return bits(object);
+    }
+
+    public long getLong(IState state, O object) {
+        return bits(state, object);
+    }
+
+    public void setLong(O object, long value) {
+        setBits(object, value);
+    }
+
+}
@@ -35,6 +35,10 @@ public interface MutableClass extends Internable {
     Constant<MutableClass, Set<Constant>>                      D_PUSHING_CONSTANTS = Constant.of("D_PUSHING_CONSTANTS",                                                                    //
             c -> c.dSetables().filter(s -> s instanceof Constant && s.isHandlingChange() && ((Constant) s).deriver() != null).map(s -> (Constant) s).toSet());
 
+    @SuppressWarnings({"rawtypes"})
+    Constant<MutableClass, Set<Setable>>                       D_CONSISTENCY       = Constant.of("D_CONSISTENCY",                                                                          //
+            c -> Collection.concat(c.dSetables().map(s -> (Setable) s), c.dObservers().map(o -> (Setable) o.exception())).filter(Setable::checkConsistency).toSet());
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     Constant<MutableClass, DefaultMap<Setable, Set<Observer>>> D_DERIVERS          = Constant.of("D_DERIVERS",                                                                             //
             c -> {
@@ -51,4 +55,8 @@ public interface MutableClass extends Internable {
         return D_DERIVERS.get(this).get(setable);
     }
 
+    default SlotLayout dSlotLayout() {
+        return SlotLayout.of(this);
+    }
+
 }
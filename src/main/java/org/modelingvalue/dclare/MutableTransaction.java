@@ -29,7 +29,9 @@ import org.modelingvalue.dclare.Observed.Observers;
 import org.modelingvalue.dclare.Priority.Queued;
 import org.modelingvalue.dclare.ex.TransactionException;
 
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
 
 import static org.modelingvalue.dclare.Mutable.D_PARENT_CONTAINING;
 import static org.modelingvalue.dclare.Priority.NON_SCHEDULED;
@@ -46,6 +48,8 @@ public class MutableTransaction extends Transaction implements StateMergeHandler
     @SuppressWarnings("unchecked")
     private final Set<Mutable>[]                          children = new Set[1];
     private final State[]                                 state    = new State[1];
+    private List<? extends List<? extends TransactionClass>> bins;
+    private State[][]                                     trails;
 
     @SuppressWarnings("unchecked")
 
@@ -133,7 +137,11 @@ public class MutableTransaction extends Transaction implements StateMergeHandler
             runSequential(random);
         } else {
             List<? extends TransactionClass> begin = random.sublist(0, random.size() >> 1);
-            runParallel(begin);
+            if (universeTransaction().costModel() != null) {
+                runBalanced(begin);
+            } else {
+                runParallel(begin);
+            }
             if (!universeTransaction().isKilled()) {
                 state[0] = state[0].set(mutable(), scheduled.actions, Set::addAll, actions.removeAll(begin));
                 state[0] = state[0].set(mutable(), scheduled.children, Set::addAll, children.removeAll(begin));
@@ -150,6 +158,7 @@ public class MutableTransaction extends Transaction implements StateMergeHandler
                 State[] branches = todo.reduce(state, this::accumulate, MutableTransaction::combine);
                 state[0] = merge(state[0], branches);
             } catch (NotMergeableException nme) {
+                universeTransaction().stats().mergeFallback(todo.size());
                 runSequential(todo);
             }
         } else {
@@ -157,13 +166,78 @@ public class MutableTransaction extends Transaction implements StateMergeHandler
         }
     }
 
+    private <T extends TransactionClass> void runBalanced(List<T> todo) {
+        CostModel costModel = universeTransaction().costModel();
+        ConflictModel conflictModel = universeTransaction().conflictModel();
+        int parallelism = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism() : Runtime.getRuntime().availableProcessors();
+        List<List<T>> bins = costModel.partition(todo, parallelism, conflictModel != null ? conflictModel.groups(todo) : tc -> null);
+        if (bins.size() > 1) {
+            State base = state[0];
+            try {
+                State[][] trails = bins.reduce(new State[0][], (a, bin) -> appendTrail(a, runAll(base, bin)), MutableTransaction::combineTrails);
+                State[] branches = new State[trails.length];
+                for (int i = 0; i < trails.length; i++) {
+                    branches[i] = trails[i][trails[i].length - 1];
+                }
+                this.bins = bins;
+                this.trails = trails;
+                state[0] = merge(base, branches);
+            } catch (NotMergeableException nme) {
+                universeTransaction().stats().mergeFallback(todo.size());
+                runSequential(todo);
+            } finally {
+                this.bins = null;
+                this.trails = null;
+            }
+        } else {
+            runSequential(todo);
+        }
+    }
+
     private <T extends TransactionClass> State[] accumulate(State[] a, T tc) {
         State[] r = a.clone();
         int lastIndex = r.length - 1;
-        r[lastIndex] = tc.run(remove(a[lastIndex], immediate, tc), this);
+        r[lastIndex] = run(tc, remove(a[lastIndex], immediate, tc));
         return r;
     }
 
+    private <T extends TransactionClass> State[] runAll(State pre, List<T> bin) {
+        State[] trail = new State[bin.size() + 1];
+        trail[0] = pre;
+        int i = 0;
+        for (T tc : bin) {
+            trail[i + 1] = run(tc, remove(trail[i], immediate, tc));
+            i++;
+        }
+        return trail;
+    }
+
+    private static State[][] appendTrail(State[][] a, State[] s) {
+        State[][] r = Arrays.copyOf(a, a.length + 1);
+        r[a.length] = s;
+        return r;
+    }
+
+    private static State[][] combineTrails(State[][] a, State[][] b) {
+        State[][] r = new State[a.length + b.length][];
+        System.arraycopy(a, 0, r, 0, a.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    private State run(TransactionClass tc, State pre) {
+        CostModel costModel = universeTransaction().costModel();
+        if (costModel == null) {
+            return tc.run(pre, this);
+        }
+        long t0 = System.nanoTime();
+        try {
+            return tc.run(pre, this);
+        } finally {
+            costModel.record(tc, System.nanoTime() - t0);
+        }
+    }
+
     private static State[] combine(State[] a, State[] b) {
         State[] r = new State[a.length + b.length];
         System.arraycopy(a, 0, r, 0, a.length);
@@ -174,7 +248,7 @@ public class MutableTransaction extends Transaction implements StateMergeHandler
     private <T extends TransactionClass> void runSequential(List<T> todo) {
         State result;
         for (TransactionClass tc : todo) {
-            result = tc.run(remove(state[0], immediate, tc), this);
+            result = run(tc, remove(state[0], immediate, tc));
             if (universeTransaction().isKilled()) {
                 return;
             }
@@ -213,9 +287,32 @@ public class MutableTransaction extends Transaction implements StateMergeHandler
     @SuppressWarnings("rawtypes")
     @Override
     public void handleMergeConflict(Object object, Setable property, Object pre, Object... branches) {
+        ConflictModel conflictModel = universeTransaction().conflictModel();
+        if (conflictModel != null && bins != null && trails != null) {
+            List<List<TransactionClass>> writers = List.of();
+            for (int i = 0; i < branches.length && i < bins.size(); i++) {
+                if (branches[i] != null && !branches[i].equals(pre)) {
+                    writers = writers.add(writers(bins.get(i), trails[i], object, property));
+                }
+            }
+            conflictModel.record(writers);
+        }
         throw new NotMergeableException(object + "." + property + "= " + pre + " -> " + StringUtil.toString(branches));
     }
 
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static List<TransactionClass> writers(List<? extends TransactionClass> bin, State[] trail, Object object, Setable property) {
+        List<TransactionClass> writers = List.of();
+        int i = 0;
+        for (TransactionClass tc : bin) {
+            if (!Objects.equals(trail[i].get(object, property), trail[i + 1].get(object, property))) {
+                writers = writers.add(tc);
+            }
+            i++;
+        }
+        return writers;
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     @Override
     public void handleChange(Object object, Setable setable, DefaultMap<Setable, Object> baseValues, DefaultMap<Setable, Object>[] branchesValues, DefaultMap<Setable, Object> resultValues) {
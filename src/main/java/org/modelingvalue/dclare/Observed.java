@@ -19,6 +19,7 @@ import java.util.function.Supplier;
 
 import org.modelingvalue.collections.DefaultMap;
 import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
 import org.modelingvalue.collections.Set;
 import org.modelingvalue.collections.util.Pair;
 import org.modelingvalue.collections.util.QuadConsumer;
@@ -55,6 +56,7 @@ public class Observed<O, T> extends Setable<O, T> {
     private final Setable<Object, Set<ObserverTrace>> writers      = Setable.of(Pair.of(this, "writers"), Set.of());
     private final boolean                             mandatory;
     private final Observers<O, T>                     observers;
+    private volatile List<ObservedIndex<O, T>>        indexes      = List.of();
     @SuppressWarnings("rawtypes")
     private final Entry<Observed, Set<Mutable>>       thisInstance = Entry.of(this, Mutable.THIS_SINGLETON);
 
@@ -77,6 +79,21 @@ public class Observed<O, T> extends Setable<O, T> {
         return true;
     }
 
+    @Override
+    void updateIndexes(LeafTransaction tx, O object, T preValue, T postValue) {
+        for (ObservedIndex<O, T> index : indexes) {
+            index.changed(tx, object, preValue, postValue);
+        }
+    }
+
+    synchronized void addIndex(ObservedIndex<O, T> index) {
+        indexes = indexes.add(index);
+    }
+
+    List<ObservedIndex<O, T>> indexes() {
+        return indexes;
+    }
+
     public Observers<O, T> observers() {
         return observers;
     }
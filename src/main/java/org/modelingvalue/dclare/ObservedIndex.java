@@ -0,0 +1,153 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.Objects;
+
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.Map;
+import org.modelingvalue.collections.Set;
+import org.modelingvalue.collections.util.Pair;
+
+/**
+ * An index from the values of an {@link Observed} to the objects that have that value, maintained
+ * in the state on every change of the observed. The index is split over a fixed number of buckets by
+ * key hash, each bucket a separate observed of the universe. {@link #get(Object)} called from an
+ * observer registers a dependency on the bucket of its key only, so the observer is triggered again
+ * when a key in that bucket changes, not on every change of the index.
+ * The buckets are not persisted, a universe started from a stored or recovered state rebuilds them with {@link #rebuild(StateMap, Universe)}.
+ */
+public class ObservedIndex<O, T> {
+
+    private static final int DEFAULT_NR_OF_BUCKETS = 256;
+
+    public static <O, T> ObservedIndex<O, T> of(Observed<O, T> observed) {
+        return new ObservedIndex<>(observed, DEFAULT_NR_OF_BUCKETS);
+    }
+
+    public static <O, T> ObservedIndex<O, T> of(Observed<O, T> observed, int nrOfBuckets) {
+        return new ObservedIndex<>(observed, nrOfBuckets);
+    }
+
+    private final Observed<O, T>                       observed;
+    private final Observed<Universe, Map<T, Set<O>>>[] buckets;
+
+    @SuppressWarnings("unchecked")
+    protected ObservedIndex(Observed<O, T> observed, int nrOfBuckets) {
+        if (nrOfBuckets < 1 || Integer.bitCount(nrOfBuckets) != 1) {
+            throw new IllegalArgumentException("number of buckets of " + observed + " index must be a power of two, not " + nrOfBuckets);
+        }
+        this.observed = observed;
+        this.buckets = new Observed[nrOfBuckets];
+        for (int i = 0; i < nrOfBuckets; i++) {
+            buckets[i] = Observed.of(Pair.of(observed, "index" + i), Map.of(), SetableModifier.plumbing);
+        }
+        observed.addIndex(this);
+    }
+
+    public Observed<O, T> observed() {
+        return observed;
+    }
+
+    void changed(LeafTransaction tx, O object, T preValue, T postValue) {
+        Universe universe = tx.universeTransaction().universe();
+        if (!Objects.equals(preValue, observed.getDefault())) {
+            tx.set(universe, bucket(preValue), ObservedIndex::remove, Pair.of(preValue, object));
+        }
+        if (!Objects.equals(postValue, observed.getDefault())) {
+            tx.set(universe, bucket(postValue), ObservedIndex::add, Pair.of(postValue, object));
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static StateMap rebuild(StateMap stateMap, Universe universe) {
+        Set<ObservedIndex> indexes = Set.of();
+        for (Entry<Object, DefaultMap<Setable, Object>> e : stateMap.map()) {
+            for (Entry<Setable, Object> p : e.getValue()) {
+                if (p.getKey() instanceof Observed) {
+                    indexes = indexes.addAll(((Observed) p.getKey()).indexes());
+                }
+            }
+        }
+        for (ObservedIndex index : indexes) {
+            stateMap = index.rebuildBuckets(stateMap, universe);
+        }
+        return stateMap;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private StateMap rebuildBuckets(StateMap stateMap, Universe universe) {
+        Map<T, Set<O>>[] maps = new Map[buckets.length];
+        for (int i = 0; i < maps.length; i++) {
+            maps[i] = Map.of();
+        }
+        for (Entry<Object, DefaultMap<Setable, Object>> e : stateMap.map()) {
+            T value = (T) e.getValue().get(observed);
+            if (!Objects.equals(value, observed.getDefault())) {
+                int i = bucketNr(value);
+                maps[i] = add(maps[i], Pair.of(value, (O) e.getKey()));
+            }
+        }
+        DefaultMap<Object, DefaultMap<Setable, Object>> map = stateMap.map();
+        DefaultMap<Setable, Object> props = map.get(universe);
+        for (int i = 0; i < maps.length; i++) {
+            props = StateMap.setProperties(props, buckets[i], maps[i]);
+        }
+        return new StateMap(map.put(universe, props));
+    }
+
+    public Set<O> get(T key) {
+        return lookup(bucket(key).get(LeafTransaction.getCurrent().universeTransaction().universe()), key);
+    }
+
+    public Set<O> get(State state, T key) {
+        return lookup(state.get(state.universeTransaction().universe(), bucket(key)), key);
+    }
+
+    private Observed<Universe, Map<T, Set<O>>> bucket(T key) {
+        return buckets[bucketNr(key)];
+    }
+
+    private int bucketNr(T key) {
+        int h = Objects.hashCode(key);
+        return (h ^ (h >>> 16)) & (buckets.length - 1);
+    }
+
+    private static <O, T> Set<O> lookup(Map<T, Set<O>> map, T key) {
+        Set<O> objects = map.get(key);
+        return objects != null ? objects : Set.of();
+    }
+
+    private static <O, T> Map<T, Set<O>> add(Map<T, Set<O>> map, Pair<T, O> entry) {
+        Set<O> objects = map.get(entry.a());
+        return map.put(entry.a(), objects != null ? objects.add(entry.b()) : Set.of(entry.b()));
+    }
+
+    private static <O, T> Map<T, Set<O>> remove(Map<T, Set<O>> map, Pair<T, O> entry) {
+        Set<O> objects = map.get(entry.a());
+        if (objects == null) {
+            return map;
+        }
+        objects = objects.remove(entry.b());
+        return objects.isEmpty() ? map.removeKey(entry.a()) : map.put(entry.a(), objects);
+    }
+
+    @Override
+    public String toString() {
+        return "ObservedIndex:" + observed;
+    }
+}
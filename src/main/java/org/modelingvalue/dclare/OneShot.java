@@ -50,6 +50,7 @@ public abstract class OneShot<U extends Universe> {
     private final        Class<?>                                    cacheKey          = getClass();
     private final        U                                           universe;
     private              State                                       endState;
+    private volatile     UniverseTransaction                         universeTransaction;
 
     @Retention(RetentionPolicy.RUNTIME)
     @Target(ElementType.METHOD)
@@ -92,7 +93,17 @@ public abstract class OneShot<U extends Universe> {
      * @return the ContextPool that was created
      */
     public ContextPool getContextPool() {
-        return ContextThread.createPool();
+        int parallelism = getConfig().getPoolParallelism();
+        return parallelism > 0 ? ContextThread.createPool(parallelism, this::uncaughtException) : ContextThread.createPool();
+    }
+
+    private void uncaughtException(Thread thread, Throwable t) {
+        UniverseTransaction tx = universeTransaction;
+        if (tx != null) {
+            tx.handleException(t);
+        } else {
+            thread.getThreadGroup().uncaughtException(thread, t);
+        }
     }
 
     public StateMap getEndStateMap() {
@@ -123,12 +134,14 @@ public abstract class OneShot<U extends Universe> {
                     UniverseTransaction universeTransaction = new UniverseTransaction(getUniverse(), contextPool, getConfig(), null, cachedStateMap);
                     long                t0                  = System.currentTimeMillis();
                     List<MyAction>      allActions          = getAllActions(runningFromCache);
+                    this.universeTransaction = universeTransaction;
                     trace("TRACE_ONE_SHOT: %-6s %-40s actions=[%s]\n", "START", cacheKey.getSimpleName(), allActions.map(a -> a.id().toString()).collect(Collectors.joining(", ")));
                     allActions.forEach(a -> a.putAndWaitForIdle(universeTransaction));
                     universeTransaction.stop();
                     endState = universeTransaction.waitForEnd();
                     trace("TRACE_ONE_SHOT: %-6s %-40s duration=%5d ms\n", "DONE", cacheKey.getSimpleName(), System.currentTimeMillis() - t0);
                 } finally {
+                    this.universeTransaction = null;
                     contextPool.shutdownNow();
                 }
             }
@@ -0,0 +1,157 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.Arrays;
+
+/**
+ * The primitive properties of one object, packed in a sorted array of slots and an array of their raw 64 bit values.
+ * Only values that differ from the default of their {@link PrimitiveSetable} are stored, so the empty block holds all defaults.
+ * Blocks are immutable, a set returns a new block and a merge combines the slots that were changed in different branches.
+ */
+public final class PrimitiveBlock {
+
+    public static final PrimitiveBlock EMPTY = new PrimitiveBlock(new int[0], new long[0]);
+
+    private final int[]                slots;
+    private final long[]               values;
+
+    private PrimitiveBlock(int[] slots, long[] values) {
+        this.slots = slots;
+        this.values = values;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    long get(int slot, long def) {
+        int i = Arrays.binarySearch(slots, slot);
+        return i >= 0 ? values[i] : def;
+    }
+
+    PrimitiveBlock set(int slot, long value, long def) {
+        return value == def ? without(slot) : put(slot, value);
+    }
+
+    private PrimitiveBlock put(int slot, long value) {
+        int i = Arrays.binarySearch(slots, slot);
+        if (i >= 0) {
+            if (values[i] == value) {
+                return this;
+            }
+            long[] v = values.clone();
+            v[i] = value;
+            return new PrimitiveBlock(slots, v);
+        }
+        int at = -i - 1;
+        int[] s = new int[slots.length + 1];
+        long[] v = new long[values.length + 1];
+        System.arraycopy(slots, 0, s, 0, at);
+        System.arraycopy(values, 0, v, 0, at);
+        s[at] = slot;
+        v[at] = value;
+        System.arraycopy(slots, at, s, at + 1, slots.length - at);
+        System.arraycopy(values, at, v, at + 1, values.length - at);
+        return new PrimitiveBlock(s, v);
+    }
+
+    private PrimitiveBlock without(int slot) {
+        int i = Arrays.binarySearch(slots, slot);
+        if (i < 0) {
+            return this;
+        } else if (slots.length == 1) {
+            return EMPTY;
+        }
+        int[] s = new int[slots.length - 1];
+        long[] v = new long[values.length - 1];
+        System.arraycopy(slots, 0, s, 0, i);
+        System.arraycopy(values, 0, v, 0, i);
+        System.arraycopy(slots, i + 1, s, i, slots.length - i - 1);
+        System.arraycopy(values, i + 1, v, i, values.length - i - 1);
+        return new PrimitiveBlock(s, v);
+    }
+
+    /**
+     * Merges the branches into this base block slot by slot. Returns <code>null</code> when two branches
+     * changed the same slot to different values. A <code>null</code> branch is taken as unchanged.
+     */
+    PrimitiveBlock merge(PrimitiveBlock[] branches, int length) {
+        PrimitiveBlock result = this;
+        for (int b = 0; b < length && result != null; b++) {
+            PrimitiveBlock branch = branches[b];
+            if (branch != null && branch != this) {
+                for (int i = 0; i < branch.slots.length && result != null; i++) {
+                    result = merge(result, branch, branch.slots[i]);
+                }
+                for (int i = 0; i < slots.length && result != null; i++) {
+                    result = merge(result, branch, slots[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    private PrimitiveBlock merge(PrimitiveBlock result, PrimitiveBlock branch, int slot) {
+        if (same(this, branch, slot) || same(result, branch, slot)) {
+            return result;
+        } else if (!same(this, result, slot)) {
+            return null;
+        }
+        int i = Arrays.binarySearch(branch.slots, slot);
+        return i >= 0 ? result.put(slot, branch.values[i]) : result.without(slot);
+    }
+
+    private static boolean same(PrimitiveBlock a, PrimitiveBlock b, int slot) {
+        int i = Arrays.binarySearch(a.slots, slot);
+        int j = Arrays.binarySearch(b.slots, slot);
+        return i < 0 ? j < 0 : j >= 0 && a.values[i] == b.values[j];
+    }
+
+    static Object merge(Object base, Object[] branches, int length) {
+        PrimitiveBlock[] blocks = new PrimitiveBlock[length];
+        for (int i = 0; i < length; i++) {
+            blocks[i] = branches[i] instanceof PrimitiveBlock ? (PrimitiveBlock) branches[i] : null;
+        }
+        return (base instanceof PrimitiveBlock ? (PrimitiveBlock) base : EMPTY).merge(blocks, length);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (!(obj instanceof PrimitiveBlock)) {
+            return false;
+        }
+        PrimitiveBlock other = (PrimitiveBlock) obj;
+        return Arrays.equals(slots, other.slots) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(slots) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("PrimitiveBlock[");
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(i == 0 ? "" : ",").append(slots[i]).append('=').append(values[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+}
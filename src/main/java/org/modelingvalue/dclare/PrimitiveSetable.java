@@ -0,0 +1,63 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A property of a primitive type that is stored unboxed in the {@link PrimitiveBlock} of its object.
+ * All primitive properties of an object share one plumbing {@link Observed} block: reading one in an observer
+ * observes the block, so a change of any primitive property of that object triggers the observer again.
+ * Parallel branches that change different primitive properties of the same object are merged per slot.
+ */
+public abstract class PrimitiveSetable<O> {
+
+    static final Observed<Object, PrimitiveBlock> BLOCK = Observed.of("D_PRIMITIVES", PrimitiveBlock.EMPTY, SetableModifier.plumbing);
+
+    private static final AtomicInteger            SLOTS = new AtomicInteger();
+
+    private final Object                          id;
+    private final int                             slot  = SLOTS.getAndIncrement();
+
+    protected PrimitiveSetable(Object id) {
+        this.id = id;
+    }
+
+    public Object id() {
+        return id;
+    }
+
+    protected abstract long defaultBits();
+
+    protected long bits(O object) {
+        return BLOCK.get(object).get(slot, defaultBits());
+    }
+
+    protected long bits(IState state, O object) {
+        return state.get(object, BLOCK).get(slot, defaultBits());
+    }
+
+    protected void setBits(O object, long bits) {
+        long def = defaultBits();
+        BLOCK.set(object, b -> b.set(slot, bits, def));
+    }
+
+    @Override
+    public String toString() {
+        return id.toString();
+    }
+
+}
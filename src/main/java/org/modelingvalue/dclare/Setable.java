@@ -73,6 +73,8 @@ public class Setable<O, T> extends Getable<O, T> {
     private final boolean                                orphansAllowed;
     private final boolean                                preserved;
     private final boolean                                doNotClear;
+    private final boolean                                indexed;
+    private final BoxCache                               boxCache;
 
     private Boolean                                      isReference;
     private Constant<O, T>                               constant;
@@ -99,6 +101,8 @@ public class Setable<O, T> extends Getable<O, T> {
         this.orphansAllowed = SetableModifier.orphansAllowed.in(modifiers);
         this.preserved = SetableModifier.preserved.in(modifiers);
         this.doNotClear = SetableModifier.doNotClear.in(modifiers);
+        this.indexed = SetableModifier.indexed.in(modifiers);
+        this.boxCache = SetableModifier.boxCache.in(modifiers) ? new BoxCache(this) : null;
     }
 
     @SuppressWarnings("rawtypes")
@@ -107,6 +111,8 @@ public class Setable<O, T> extends Getable<O, T> {
             return nullEntry;
         } else if (Internable.isInternable(value)) {
             return internal.get(value);
+        } else if (boxCache != null) {
+            return boxCache.entry(value);
         } else {
             Entry<Setable, Object> e = Entry.of(this, value);
             if (deduplicate(value)) {
@@ -132,6 +138,10 @@ public class Setable<O, T> extends Getable<O, T> {
         return doNotClear;
     }
 
+    public boolean indexed() {
+        return indexed;
+    }
+
     public boolean orphansAllowed() {
         return orphansAllowed;
     }
@@ -205,6 +215,10 @@ public class Setable<O, T> extends Getable<O, T> {
                     added -> opp.add(added, object), //
                     removed -> opp.remove(removed, object));
         }
+        updateIndexes(tx, object, preValue, postValue);
+    }
+
+    void updateIndexes(LeafTransaction tx, O object, T preValue, T postValue) {
     }
 
     protected void init(T postValue) {
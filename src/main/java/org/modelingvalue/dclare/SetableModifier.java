@@ -25,5 +25,7 @@ public enum SetableModifier implements FeatureModifier<SetableModifier> {
     doNotMerge,
     orphansAllowed,
     preserved,
-    doNotClear;
+    doNotClear,
+    indexed,
+    boxCache;
 }
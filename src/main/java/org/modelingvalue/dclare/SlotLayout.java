@@ -0,0 +1,74 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+import org.modelingvalue.collections.List;
+
+/**
+ * The stable slot indexes of the non constant setables of a {@link MutableClass}, used by {@link CompactStateMap}.
+ * Layouts are cached weakly per class, so classes that are no longer used do not keep their layout alive.
+ */
+@SuppressWarnings("rawtypes")
+public final class SlotLayout {
+
+    public static final SlotLayout                              EMPTY   = new SlotLayout(List.of());
+
+    private static final WeakHashMap<MutableClass, SlotLayout> LAYOUTS = new WeakHashMap<>();
+
+    public static SlotLayout of(MutableClass cls) {
+        synchronized (LAYOUTS) {
+            return LAYOUTS.computeIfAbsent(cls, c -> new SlotLayout(c.dSetables().filter(s -> !(s instanceof Constant)).map(s -> (Setable) s).toList()));
+        }
+    }
+
+    static SlotLayout of(Object object) {
+        return object instanceof Mutable ? ((Mutable) object).dClass().dSlotLayout() : EMPTY;
+    }
+
+    private final Setable[]                 setables;
+    private final HashMap<Setable, Integer> slots;
+
+    private SlotLayout(List<Setable> setables) {
+        this.setables = setables.toArray(Setable[]::new);
+        this.slots = new HashMap<>(setables.size() * 2);
+        for (int i = 0; i < this.setables.length; i++) {
+            slots.put(this.setables[i], i);
+        }
+    }
+
+    public int size() {
+        return setables.length;
+    }
+
+    public int slot(Getable getable) {
+        Integer slot = slots.get(getable);
+        return slot != null ? slot : -1;
+    }
+
+    public Setable setable(int slot) {
+        return setables[slot];
+    }
+
+    @Override
+    public String toString() {
+        return "SlotLayout" + Arrays.toString(setables);
+    }
+
+}
@@ -29,6 +29,7 @@ import org.modelingvalue.collections.util.StringUtil;
 import java.io.Serializable;
 import java.util.Comparator;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Predicate;
@@ -43,11 +44,15 @@ public class State extends StateMap implements IState, Serializable {
 
     private static final long serialVersionUID = -3468784705870374732L;
 
-    private final UniverseTransaction universeTransaction;
+    private final UniverseTransaction                          universeTransaction;
+    private transient volatile Map<Setable, Set<Object>>       index;
 
     protected State(UniverseTransaction universeTransaction, StateMap stateMap) {
         super(stateMap);
         this.universeTransaction = universeTransaction;
+        if (stateMap instanceof State) {
+            this.index = ((State) stateMap).index;
+        }
     }
 
     private State(UniverseTransaction universeTransaction, DefaultMap<Object, DefaultMap<Setable, Object>> map) {
@@ -106,7 +111,12 @@ public class State extends StateMap implements IState, Serializable {
     }
 
     <O, T> State set(O object, DefaultMap<Setable, Object> post) {
-        return newState(post.isEmpty() ? map().removeKey(object) : map().put(object, post));
+        State state = newState(post.isEmpty() ? map().removeKey(object) : map().put(object, post));
+        Map<Setable, Set<Object>> index = this.index;
+        if (index != null && state != universeTransaction.emptyState()) {
+            state.index = reindex(index, object, getProperties(object), post);
+        }
+        return state;
     }
 
     @SuppressWarnings("unchecked")
@@ -115,38 +125,141 @@ public class State extends StateMap implements IState, Serializable {
         for (int i = 0; i < length; i++) {
             maps[i] = branches[i].map();
         }
-        return newState(map().merge((o, ps, pss, pl) -> {
-            DefaultMap<Setable, Object> props = ps.merge((p, v, vs, vl) -> {
-                Object r = v;
-                if (v instanceof Mergeable) {
-                    r = ((Mergeable) v).merge(vs, (int) vl);
-                } else {
-                    for (int i = 0; i < vl; i++) {
-                        if (vs[i] != null && !vs[i].equals(v)) {
-                            if (!Objects.equals(r, v)) {
-                                if (changeHandler != null) {
-                                    changeHandler.handleMergeConflict(o, p, v, vs);
-                                } else {
-                                    throw new NotMergeableException(o + "." + p + "= " + v + " -> " + StringUtil.toString(vs));
-                                }
+        Map<Setable, Set<Object>> index = this.index;
+        ConcurrentLinkedQueue<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> changes = index != null ? new ConcurrentLinkedQueue<>() : null;
+        State merged = newState(map().merge((o, ps, pss, pl) -> {
+            DefaultMap<Setable, Object> props = merge(changeHandler, o, ps, pss, (int) pl);
+            if (changes != null && props != ps) {
+                changes.add(Entry.of(o, Pair.of(ps, props)));
+            }
+            return props;
+        }, maps, maps.length));
+        if (changes != null && merged != universeTransaction.emptyState()) {
+            for (Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>> c : changes) {
+                index = reindex(index, c.getKey(), c.getValue().a(), c.getValue().b());
+            }
+            merged.index = index;
+        }
+        return merged;
+    }
+
+    private DefaultMap<Setable, Object> merge(StateMergeHandler changeHandler, Object o, DefaultMap<Setable, Object> ps, DefaultMap<Setable, Object>[] pss, int pl) {
+        DefaultMap<Setable, Object> touched = touchedByOne(ps, pss, pl);
+        if (touched != null) {
+            return touched;
+        }
+        DefaultMap<Setable, Object> props = ps.merge((p, v, vs, vl) -> {
+            Object r = v;
+            if (v instanceof Mergeable) {
+                r = ((Mergeable) v).merge(vs, (int) vl);
+            } else if (p == PrimitiveSetable.BLOCK) {
+                r = PrimitiveBlock.merge(v, vs, (int) vl);
+                if (r == null) {
+                    if (changeHandler != null) {
+                        changeHandler.handleMergeConflict(o, p, v, vs);
+                    } else {
+                        throw new NotMergeableException(o + "." + p + "= " + v + " -> " + StringUtil.toString(vs));
+                    }
+                    r = v;
+                }
+            } else {
+                for (int i = 0; i < vl; i++) {
+                    if (vs[i] != null && !vs[i].equals(v)) {
+                        if (!Objects.equals(r, v)) {
+                            if (changeHandler != null) {
+                                changeHandler.handleMergeConflict(o, p, v, vs);
                             } else {
-                                r = vs[i];
+                                throw new NotMergeableException(o + "." + p + "= " + v + " -> " + StringUtil.toString(vs));
                             }
+                        } else {
+                            r = vs[i];
                         }
                     }
                 }
-                return r;
-            }, pss, pl);
-            if (changeHandler != null) {
-                for (Entry<Setable, Object> p : props) {
-                    if (p != ps.getEntry(p.getKey())) {
-                        deduplicate(p);
-                        changeHandler.handleChange(o, p.getKey(), ps, pss, props);
-                    }
+            }
+            return r;
+        }, pss, pl);
+        if (changeHandler != null) {
+            for (Entry<Setable, Object> p : props) {
+                if (p != ps.getEntry(p.getKey())) {
+                    deduplicate(p);
+                    changeHandler.handleChange(o, p.getKey(), ps, pss, props);
                 }
             }
-            return props;
-        }, maps, maps.length));
+        }
+        return props;
+    }
+
+    // Replaces the property maps of the given objects, an empty map removes the object. Used to rebuild history states.
+    State replace(Iterable<Entry<Object, DefaultMap<Setable, Object>>> entries) {
+        DefaultMap<Object, DefaultMap<Setable, Object>> map   = map();
+        Map<Setable, Set<Object>>                       index = this.index;
+        for (Entry<Object, DefaultMap<Setable, Object>> e : entries) {
+            if (index != null) {
+                index = reindex(index, e.getKey(), map.get(e.getKey()), e.getValue());
+            }
+            map = e.getValue().isEmpty() ? map.removeKey(e.getKey()) : map.put(e.getKey(), e.getValue());
+        }
+        State state = universeTransaction.createState(new StateMap(map));
+        if (index != null && state != universeTransaction.emptyState()) {
+            state.index = index;
+        }
+        return state;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <O> Set<O> getObjects(Setable<O, ?> setable) {
+        if (setable.indexed()) {
+            Set<Object> objects = index().get(setable);
+            return objects != null ? (Set<O>) objects : Set.of();
+        } else {
+            return (Set<O>) map().filter(e -> e.getValue().getEntry(setable) != null).map(Entry::getKey).toSet();
+        }
+    }
+
+    // The objects that have a non default value for each indexed setable, built on first use
+    // and from then on carried along by set, merge, replace and copies of this state.
+    private Map<Setable, Set<Object>> index() {
+        Map<Setable, Set<Object>> index = this.index;
+        if (index == null) {
+            index = Map.of();
+            for (Entry<Object, DefaultMap<Setable, Object>> e : map()) {
+                index = reindex(index, e.getKey(), StateMap.EMPTY_SETABLES_MAP, e.getValue());
+            }
+            this.index = index;
+        }
+        return index;
+    }
+
+    private static Map<Setable, Set<Object>> reindex(Map<Setable, Set<Object>> index, Object object, DefaultMap<Setable, Object> pre, DefaultMap<Setable, Object> post) {
+        for (Entry<Setable, Pair<Object, Object>> d : pre.diff(post)) {
+            Setable setable = d.getKey();
+            if (setable.indexed()) {
+                boolean was = pre.getEntry(setable) != null;
+                boolean is  = post.getEntry(setable) != null;
+                if (was != is) {
+                    Set<Object> objects = index.get(setable);
+                    objects = objects == null ? Set.of() : objects;
+                    index = index.put(setable, is ? objects.add(object) : objects.remove(object));
+                }
+            }
+        }
+        return index;
+    }
+
+    // Branches share the unchanged property maps of the base, so an object that was written in only one branch
+    // can be taken from that branch as is, without a property level merge and without change handling.
+    private static DefaultMap<Setable, Object> touchedByOne(DefaultMap<Setable, Object> base, DefaultMap<Setable, Object>[] branches, int length) {
+        DefaultMap<Setable, Object> touched = base;
+        for (int i = 0; i < length; i++) {
+            if (branches[i] != base) {
+                if (touched != base) {
+                    return null;
+                }
+                touched = branches[i];
+            }
+        }
+        return touched;
     }
 
     @Override
@@ -219,6 +332,15 @@ public class State extends StateMap implements IState, Serializable {
         }
     }
 
+    @Override
+    protected Collection<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> objectDiff(StateMap other) {
+        Collection<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> shared = null;
+        if (universeTransaction != null && other instanceof State && ((State) other).universeTransaction == universeTransaction) {
+            shared = universeTransaction.diffCache().diff(this, other);
+        }
+        return shared != null ? shared : super.objectDiff(other);
+    }
+
     public String diffString(StateMap other) {
         return diffString(diff(other));
     }
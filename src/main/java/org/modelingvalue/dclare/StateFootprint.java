@@ -0,0 +1,195 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.modelingvalue.collections.ContainingCollection;
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.util.Pair;
+
+@SuppressWarnings("rawtypes")
+public final class StateFootprint {
+
+    public enum Category {
+        model,
+        observerds,
+        observers,
+        queued,
+        traces,
+        plumbing
+    }
+
+    public static final class Usage {
+        private long entries;
+        private long bytes;
+
+        private void add(long entries, long bytes) {
+            this.entries += entries;
+            this.bytes += bytes;
+        }
+
+        public long entries() {
+            return entries;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%9d entries %12d bytes", entries, bytes);
+        }
+    }
+
+    private static final int HEADER = 16;
+    private static final int REF    = 4;
+    private static final int ENTRY  = HEADER + 2 * REF;
+    private static final int NODE   = 2 * REF;
+    private static final int TOP    = 10;
+
+    public static StateFootprint of(StateMap state) {
+        StateFootprint footprint = new StateFootprint();
+        for (Entry<Object, DefaultMap<Setable, Object>> o : state.map()) {
+            footprint.object(o.getKey(), o.getValue());
+        }
+        return footprint;
+    }
+
+    private final Set<Object>          seen       = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Setable, Usage>  bySetable  = new HashMap<>();
+    private final Map<Object, Usage>   byClass    = new HashMap<>();
+    private final Map<Category, Usage> byCategory = new EnumMap<>(Category.class);
+    private int                        objects;
+    private long                       entries;
+    private long                       bytes;
+
+    private StateFootprint() {
+    }
+
+    private void object(Object object, DefaultMap<Setable, Object> properties) {
+        long size = ENTRY + NODE + HEADER;
+        int count = 0;
+        objects++;
+        for (Entry<Setable, Object> e : properties) {
+            long entry = seen.add(e) ? ENTRY + NODE + estimate(e.getValue()) : NODE;
+            bySetable.computeIfAbsent(e.getKey(), k -> new Usage()).add(1, entry);
+            byCategory.computeIfAbsent(category(e.getKey()), k -> new Usage()).add(1, entry);
+            count++;
+            size += entry;
+        }
+        byClass.computeIfAbsent(object instanceof Mutable ? ((Mutable) object).dClass() : object.getClass().getSimpleName(), k -> new Usage()).add(count, size);
+        entries += count;
+        bytes += size;
+    }
+
+    private long estimate(Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Enum || value instanceof Mutable || value instanceof Getable || value instanceof Observer || !seen.add(value)) {
+            return 0;
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof Character || value instanceof Float) {
+            return HEADER;
+        } else if (value instanceof Number) {
+            return HEADER + 8;
+        } else if (value instanceof String) {
+            return HEADER + REF + 4 + HEADER + ((String) value).length();
+        } else if (value instanceof Entry) {
+            return ENTRY + estimate(((Entry) value).getKey()) + estimate(((Entry) value).getValue());
+        } else if (value instanceof Pair) {
+            return ENTRY + estimate(((Pair) value).a()) + estimate(((Pair) value).b());
+        } else if (value instanceof ContainingCollection) {
+            long size = HEADER + REF;
+            for (Object element : (ContainingCollection<?>) value) {
+                size += NODE + estimate(element);
+            }
+            return size;
+        } else {
+            return HEADER + 2 * REF;
+        }
+    }
+
+    private static Category category(Setable setable) {
+        if (setable instanceof Observer.Observerds) {
+            return Category.observerds;
+        } else if (setable instanceof Observed.Observers) {
+            return Category.observers;
+        } else if (setable instanceof Priority.Queued) {
+            return Category.queued;
+        } else if (setable instanceof Observer.Traces || isTrace(setable)) {
+            return Category.traces;
+        } else if (setable.isPlumbing()) {
+            return Category.plumbing;
+        } else {
+            return Category.model;
+        }
+    }
+
+    private static boolean isTrace(Setable setable) {
+        if (setable.id() instanceof Pair && ((Pair) setable.id()).a() instanceof Observed) {
+            Observed observed = (Observed) ((Pair) setable.id()).a();
+            return observed.readers() == setable || observed.writers() == setable;
+        }
+        return false;
+    }
+
+    public int objects() {
+        return objects;
+    }
+
+    public long entries() {
+        return entries;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public Map<Setable, Usage> bySetable() {
+        return Collections.unmodifiableMap(bySetable);
+    }
+
+    public Map<Object, Usage> byClass() {
+        return Collections.unmodifiableMap(byClass);
+    }
+
+    public Map<Category, Usage> byCategory() {
+        return Collections.unmodifiableMap(byCategory);
+    }
+
+    @Override
+    public String toString() {
+        return "StateFootprint:\n" //
+                + "    objects  = " + objects + "\n" //
+                + "    entries  = " + entries + "\n" //
+                + "    bytes    = " + bytes + "\n" //
+                + top("category", byCategory) //
+                + top("class", byClass) //
+                + top("setable", bySetable);
+    }
+
+    private static String top(String name, Map<?, Usage> usages) {
+        return usages.entrySet().stream().sorted((a, b) -> Long.compare(b.getValue().bytes, a.getValue().bytes)).limit(TOP) //
+                .map(e -> String.format("    %-8s %-50s %s%n", name, e.getKey(), e.getValue())).collect(Collectors.joining());
+    }
+
+}
@@ -0,0 +1,173 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.lang.ref.SoftReference;
+
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
+import org.modelingvalue.collections.util.Pair;
+
+/**
+ * The undo history of a universe. Without a byte budget every entry is a full {@link State}.
+ * With a budget only the newest entry and every <code>checkpoint</code>-th entry are full states,
+ * the others are reverse deltas that hold the per-object property maps that differ from the next newer entry.
+ * The estimated size of those deltas and of the full checkpoint states is kept within the budget by dropping the oldest entries,
+ * or by moving them to a {@link HistoryArchive} when one is installed. An entry the archive refuses breaks the chain
+ * of reverse deltas, so the archive is cleared and that entry is dropped. Archived entries are only read back by {@link #removeLast()}.
+ * The states of delta entries are rebuilt newest first, because each is applied to the next newer state, and kept softly
+ * so repeated calls of {@link #states()} do not re-apply the deltas. The states are returned oldest first.
+ */
+@SuppressWarnings("rawtypes")
+final class StateHistory {
+    private static final long         OBJECT_BYTES   = 64;
+    private static final long         PROPERTY_BYTES = 48;
+
+    private final long                budget;
+    private final int                 checkpoint;
+    private volatile List<Item>       items          = List.of();
+    private volatile HistoryArchive   archive;
+    private long                      bytes;
+
+    private static final class Item {
+        private final State                                            state;
+        private final List<Entry<Object, DefaultMap<Setable, Object>>> delta;
+        private final long                                             bytes;
+        private final int                                              distance;
+        private volatile SoftReference<State>                          rebuilt;
+
+        private Item(State state, List<Entry<Object, DefaultMap<Setable, Object>>> delta, long bytes, int distance) {
+            this.state = state;
+            this.delta = delta;
+            this.bytes = bytes;
+            this.distance = distance;
+        }
+    }
+
+    StateHistory(long budget, int checkpoint) {
+        this.budget = budget;
+        this.checkpoint = budget > 0 ? Math.max(1, checkpoint) : 1;
+    }
+
+    void setArchive(HistoryArchive archive) {
+        this.archive = archive;
+    }
+
+    int size() {
+        HistoryArchive archive = this.archive;
+        return items.size() + (archive != null ? archive.size() : 0);
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    void append(State state) {
+        List<Item> items = this.items;
+        int distance = 0;
+        if (!items.isEmpty()) {
+            Item last = items.last();
+            if (budget > 0) {
+                List<Entry<Object, DefaultMap<Setable, Object>>> delta = reverse(state, last.state);
+                long size = size(delta) + (last.distance == 0 ? size(last.state.map()) : 0);
+                bytes += size;
+                Item item = new Item(last.distance == 0 ? last.state : null, delta, size, last.distance);
+                if (item.state == null) {
+                    item.rebuilt = new SoftReference<>(last.state);
+                }
+                items = items.removeLast().append(item);
+            }
+            distance = last.distance + 1 < checkpoint ? last.distance + 1 : 0;
+        }
+        this.items = items.append(new Item(state, null, 0, distance));
+    }
+
+    State removeLast() {
+        List<Item> items = this.items;
+        HistoryArchive archive = this.archive;
+        if (items.size() == 1 && archive != null && archive.size() > 0) {
+            items = items.prepend(new Item(items.first().state.replace(archive.pop()), null, 0, 0));
+        }
+        Item last = items.last();
+        items = items.removeLast();
+        if (!items.isEmpty()) {
+            Item prev = items.last();
+            bytes -= prev.bytes;
+            items = items.removeLast().append(new Item(state(prev, last.state), null, 0, prev.distance));
+        }
+        this.items = items;
+        return last.state;
+    }
+
+    void trim(int maxSize) {
+        List<Item> items = this.items;
+        HistoryArchive archive = this.archive;
+        while (items.size() > maxSize || (budget > 0 && bytes > budget && items.size() > 1)) {
+            Item first = items.first();
+            if (archive != null && !archive.push(first.delta != null ? first.delta : reverse(items.get(1).state, first.state))) {
+                archive.clear();
+            }
+            bytes -= first.bytes;
+            items = items.removeFirst();
+        }
+        this.items = items;
+    }
+
+    List<State> states() {
+        List<Item> items = this.items;
+        State[] states = new State[items.size()];
+        State state = null;
+        for (int i = states.length - 1; i >= 0; i--) {
+            state = state(items.get(i), state);
+            states[i] = state;
+        }
+        return List.of(states);
+    }
+
+    private State state(Item item, State newer) {
+        if (item.state != null) {
+            return item.state;
+        }
+        SoftReference<State> ref = item.rebuilt;
+        State state = ref != null ? ref.get() : null;
+        if (state == null) {
+            state = apply(newer, item.delta);
+            item.rebuilt = new SoftReference<>(state);
+        }
+        return state;
+    }
+
+    private List<Entry<Object, DefaultMap<Setable, Object>>> reverse(State newer, State older) {
+        List<Entry<Object, DefaultMap<Setable, Object>>> delta = List.of();
+        for (Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>> e : newer.map().diff(older.map())) {
+            delta = delta.add(Entry.of(e.getKey(), e.getValue().b()));
+        }
+        return delta;
+    }
+
+    private State apply(State newer, List<Entry<Object, DefaultMap<Setable, Object>>> delta) {
+        return newer.replace(delta);
+    }
+
+    private static long size(Iterable<Entry<Object, DefaultMap<Setable, Object>>> entries) {
+        long size = 0;
+        for (Entry<Object, DefaultMap<Setable, Object>> e : entries) {
+            size += OBJECT_BYTES + PROPERTY_BYTES * e.getValue().size();
+        }
+        return size;
+    }
+}
@@ -166,7 +166,7 @@ public class StateMap implements Serializable {
     }
 
     public Collection<Entry<Object, Map<Setable, Pair<Object, Object>>>> diff(StateMap other, Predicate<Object> objectFilter, Predicate<Setable> setableFilter) {
-        return map.diff(other.map()).filter(d1 -> objectFilter.test(d1.getKey())).map(d2 -> {
+        return objectDiff(other).filter(d1 -> objectFilter.test(d1.getKey())).map(d2 -> {
             DefaultMap<Setable, Object> map2 = d2.getValue().a();
             Map<Setable, Pair<Object, Object>> diff = map2.diff(d2.getValue().b()).filter(d3 -> setableFilter.test(d3.getKey())).toMap(e -> e);
             return diff.isEmpty() ? null : Entry.of(d2.getKey(), diff);
@@ -174,7 +174,11 @@ public class StateMap implements Serializable {
     }
 
     public Collection<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> diff(StateMap other, Predicate<Object> objectFilter) {
-        return map.diff(other.map()).filter(d1 -> objectFilter.test(d1.getKey()));
+        return objectDiff(other).filter(d1 -> objectFilter.test(d1.getKey()));
+    }
+
+    protected Collection<Entry<Object, Pair<DefaultMap<Setable, Object>, DefaultMap<Setable, Object>>>> objectDiff(StateMap other) {
+        return map.diff(other.map());
     }
 
     public void forEach(TriConsumer<Object, Setable, Object> consumer) {
@@ -0,0 +1,440 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.modelingvalue.collections.Collection;
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
+import org.modelingvalue.collections.Set;
+
+/**
+ * A compact binary snapshot of a {@link StateMap}, streamed through a {@link FileChannel}.
+ * Numbers, booleans, strings, sets and lists are written natively, all other objects, setables and values
+ * are written as ids of the given {@link IdCodec}. Every distinct id is written and decoded only once.
+ * Objects and properties that can not be encoded are left out of the snapshot.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class StateMapStore {
+    private static final int MAGIC       = 0x44435354;
+    private static final int VERSION     = 1;
+    private static final int REMOVED_TAG = 10;
+
+    private StateMapStore() {
+    }
+
+    public static int write(StateMap stateMap, Path path, IdCodec codec) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        int nr = 0;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel, codec);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Entry<Object, DefaultMap<Setable, Object>> e : stateMap.map()) {
+                nr += out.writeProperties(e.getKey(), e.getValue());
+            }
+            out.writeVarInt(0);
+            out.flush();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return nr;
+    }
+
+    public static StateMap read(Path path, IdCodec codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Input in = new Input(channel, codec);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a state map snapshot: " + path);
+            }
+            return new StateMap(in.readObjects(StateMap.EMPTY_STATE_MAP.map()));
+        }
+    }
+
+    static final class Output {
+        private final WritableByteChannel      channel;
+        private final IdCodec                  codec;
+        private final ByteBuffer               buffer   = ByteBuffer.allocateDirect(1 << 16);
+        private final HashMap<Object, String>  encoded  = new HashMap<>();
+        private final HashMap<String, Integer> interned = new HashMap<>();
+
+        Output(WritableByteChannel channel, IdCodec codec) {
+            this.channel = channel;
+            this.codec = codec;
+        }
+
+        int writeProperties(Object object, Iterable<Entry<Setable, Object>> props) throws IOException {
+            if (encode(object) == null) {
+                return 0;
+            }
+            int nr = 0;
+            for (Entry<Setable, Object> p : props) {
+                if (encode(p.getKey()) != null && encodable(p.getValue())) {
+                    nr++;
+                }
+            }
+            if (nr > 0) {
+                writeObject(object, props, nr);
+            }
+            return nr;
+        }
+
+        /**
+         * Writes the changed properties of an object as a delta. A property whose setable can be encoded
+         * but whose new value can not is written as a removal, so a replay does not keep its old value.
+         */
+        int writeDelta(Object object, Iterable<Entry<Setable, Object>> props) throws IOException {
+            if (encode(object) == null) {
+                return 0;
+            }
+            int nr = 0;
+            for (Entry<Setable, Object> p : props) {
+                if (encode(p.getKey()) != null) {
+                    nr++;
+                }
+            }
+            if (nr > 0) {
+                writeVarInt(1);
+                writeRef(object);
+                writeVarInt(nr);
+                for (Entry<Setable, Object> p : props) {
+                    if (encode(p.getKey()) != null) {
+                        writeRef(p.getKey());
+                        if (encodable(p.getValue())) {
+                            writeValue(p.getValue());
+                        } else {
+                            writeVarInt(REMOVED_TAG);
+                        }
+                    }
+                }
+            }
+            return nr;
+        }
+
+        boolean encodable(Object object, Iterable<Entry<Setable, Object>> props) {
+            if (encode(object) == null) {
+                return false;
+            }
+            for (Entry<Setable, Object> p : props) {
+                if (encode(p.getKey()) == null || !encodable(p.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean writeObject(Object object, Iterable<Entry<Setable, Object>> props) throws IOException {
+            if (encode(object) == null) {
+                return false;
+            }
+            int nr = 0;
+            for (Entry<Setable, Object> p : props) {
+                if (encode(p.getKey()) != null && encodable(p.getValue())) {
+                    nr++;
+                }
+            }
+            writeObject(object, props, nr);
+            return true;
+        }
+
+        private void writeObject(Object object, Iterable<Entry<Setable, Object>> props, int nr) throws IOException {
+            writeVarInt(1);
+            writeRef(object);
+            writeVarInt(nr);
+            for (Entry<Setable, Object> p : props) {
+                if (encode(p.getKey()) != null && encodable(p.getValue())) {
+                    writeRef(p.getKey());
+                    writeValue(p.getValue());
+                }
+            }
+        }
+
+        private String encode(Object object) {
+            String id = encoded.get(object);
+            if (id == null && !encoded.containsKey(object)) {
+                id = codec.encode(object);
+                encoded.put(object, id);
+            }
+            return id;
+        }
+
+        private boolean encodable(Object value) {
+            if (value == null || value instanceof Integer || value instanceof Long || value instanceof Boolean || value instanceof Double || value instanceof String) {
+                return true;
+            } else if (value instanceof Set || value instanceof List) {
+                for (Object e : (Collection<?>) value) {
+                    if (!encodable(e)) {
+                        return false;
+                    }
+                }
+                return true;
+            } else {
+                return encode(value) != null;
+            }
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+            } else if (value instanceof Integer) {
+                writeVarInt(1);
+                writeVarLong(zigzag((Integer) value));
+            } else if (value instanceof Long) {
+                writeVarInt(2);
+                writeVarLong(zigzag((Long) value));
+            } else if (value instanceof Boolean) {
+                writeVarInt((Boolean) value ? 3 : 4);
+            } else if (value instanceof Double) {
+                writeVarInt(5);
+                ensure(8);
+                buffer.putDouble((Double) value);
+            } else if (value instanceof String) {
+                writeVarInt(6);
+                writeString((String) value);
+            } else if (value instanceof Set || value instanceof List) {
+                Collection<?> collection = (Collection<?>) value;
+                writeVarInt(value instanceof Set ? 7 : 8);
+                writeVarInt(collection.size());
+                for (Object e : collection) {
+                    writeValue(e);
+                }
+            } else {
+                writeVarInt(9);
+                writeRef(value);
+            }
+        }
+
+        void writeRef(Object object) throws IOException {
+            String id = encode(object);
+            Integer index = interned.get(id);
+            if (index == null) {
+                interned.put(id, interned.size());
+                writeVarInt(0);
+                writeString(id);
+            } else {
+                writeVarInt(index + 1);
+            }
+        }
+
+        void writeString(String string) throws IOException {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            for (int i = 0; i < bytes.length;) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - i);
+                buffer.put(bytes, i, n);
+                i += n;
+            }
+        }
+
+        void writeInt(int i) throws IOException {
+            ensure(4);
+            buffer.putInt(i);
+        }
+
+        void writeVarInt(int i) throws IOException {
+            writeVarLong(i & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long l) throws IOException {
+            ensure(10);
+            while ((l & ~0x7FL) != 0) {
+                buffer.put((byte) ((l & 0x7F) | 0x80));
+                l >>>= 7;
+            }
+            buffer.put((byte) l);
+        }
+
+        private static long zigzag(long l) {
+            return (l << 1) ^ (l >> 63);
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    static final class Input {
+        private static final Object       UNKNOWN = new Object();
+        private static final Object       REMOVED = new Object();
+
+        private final ReadableByteChannel channel;
+        private final IdCodec             codec;
+        private final ByteBuffer          buffer  = ByteBuffer.allocateDirect(1 << 16).flip();
+        private final ArrayList<Object>   decoded = new ArrayList<>();
+
+        Input(ReadableByteChannel channel, IdCodec codec) {
+            this.channel = channel;
+            this.codec = codec;
+        }
+
+        DefaultMap<Object, DefaultMap<Setable, Object>> readObjects(DefaultMap<Object, DefaultMap<Setable, Object>> map) throws IOException {
+            while (readVarInt() != 0) {
+                Object object = readRef();
+                DefaultMap<Setable, Object> props = readProperties(object != null ? map.get(object) : StateMap.EMPTY_SETABLES_MAP);
+                if (object != null) {
+                    map = map.put(object, props);
+                }
+            }
+            return map;
+        }
+
+        List<Entry<Object, DefaultMap<Setable, Object>>> readReplacements() throws IOException {
+            List<Entry<Object, DefaultMap<Setable, Object>>> replacements = List.of();
+            while (readVarInt() != 0) {
+                Object object = readRef();
+                DefaultMap<Setable, Object> props = readProperties(StateMap.EMPTY_SETABLES_MAP);
+                if (object != null) {
+                    replacements = replacements.add(Entry.of(object, props));
+                }
+            }
+            return replacements;
+        }
+
+        DefaultMap<Setable, Object> readProperties(DefaultMap<Setable, Object> props) throws IOException {
+            for (int nr = readVarInt(); nr > 0; nr--) {
+                Object setable = readRef();
+                Object value = readValue();
+                if (setable instanceof Setable && value == REMOVED) {
+                    props = props.removeKey((Setable) setable);
+                } else if (setable instanceof Setable && value != UNKNOWN) {
+                    props = StateMap.setProperties(props, (Setable) setable, value);
+                }
+            }
+            return props;
+        }
+
+        Object readValue() throws IOException {
+            int tag = readVarInt();
+            switch (tag) {
+            case 0:
+                return null;
+            case 1:
+                return (int) unzigzag(readVarLong());
+            case 2:
+                return unzigzag(readVarLong());
+            case 3:
+                return true;
+            case 4:
+                return false;
+            case 5:
+                require(8);
+                return buffer.getDouble();
+            case 6:
+                return readString();
+            case 7:
+            case 8:
+                List<Object> elements = List.of();
+                boolean known = true;
+                for (int nr = readVarInt(); nr > 0; nr--) {
+                    Object e = readValue();
+                    known &= e != UNKNOWN;
+                    elements = elements.add(e);
+                }
+                return !known ? UNKNOWN : tag == 7 ? elements.toSet() : elements;
+            case 9:
+                Object value = readRef();
+                return value == null ? UNKNOWN : value;
+            case REMOVED_TAG:
+                return REMOVED;
+            default:
+                throw new IOException("corrupt value tag " + tag);
+            }
+        }
+
+        Object readRef() throws IOException {
+            int ref = readVarInt();
+            if (ref == 0) {
+                Object object = codec.decode(readString());
+                decoded.add(object);
+                return object;
+            } else {
+                return decoded.get(ref - 1);
+            }
+        }
+
+        String readString() throws IOException {
+            byte[] bytes = new byte[readVarInt()];
+            for (int i = 0; i < bytes.length;) {
+                require(1);
+                int n = Math.min(buffer.remaining(), bytes.length - i);
+                buffer.get(bytes, i, n);
+                i += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int readInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() throws IOException {
+            long l = 0;
+            for (int shift = 0;; shift += 7) {
+                require(1);
+                byte b = buffer.get();
+                l |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return l;
+                }
+            }
+        }
+
+        private static long unzigzag(long l) {
+            return (l >>> 1) ^ -(l & 1);
+        }
+
+        private void require(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                buffer.compact();
+                while (buffer.position() < n) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException();
+                    }
+                }
+                buffer.flip();
+            }
+        }
+    }
+}
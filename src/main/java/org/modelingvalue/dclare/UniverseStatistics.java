@@ -16,19 +16,27 @@
 package org.modelingvalue.dclare;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.modelingvalue.collections.util.Pair;
 
 @SuppressWarnings("unused")
 public class UniverseStatistics {
-    private final UniverseTransaction tx;
+    private final UniverseTransaction            tx;
     //
-    private boolean                   debugging;
-    private int                       totalChanges;
-    private long                      runCount;
-    private long                      forwardCount;
-    private long                      totalChangesEver;
+    private boolean                              debugging;
+    private int                                  totalChanges;
+    private long                                 runCount;
+    private long                                 forwardCount;
+    private long                                 totalChangesEver;
+    private final AtomicLong                     mergeFallbacks;
+    private final AtomicLong                     wastedRuns;
+    private volatile Pair<State, StateFootprint> footprint;
 
     public UniverseStatistics(UniverseTransaction tx) {
         this.tx = tx;
+        this.mergeFallbacks = new AtomicLong();
+        this.wastedRuns = new AtomicLong();
     }
 
     private UniverseStatistics(UniverseStatistics o) {
@@ -38,6 +46,9 @@ public class UniverseStatistics {
         this.runCount = o.runCount;
         this.forwardCount = o.forwardCount;
         this.totalChangesEver = o.totalChangesEver;
+        this.mergeFallbacks = new AtomicLong(o.mergeFallbacks.get());
+        this.wastedRuns = new AtomicLong(o.wastedRuns.get());
+        this.footprint = o.footprint;
     }
 
     @Override
@@ -56,6 +67,11 @@ public class UniverseStatistics {
         forwardCount++;
     }
 
+    void mergeFallback(int nrOfRuns) {
+        mergeFallbacks.incrementAndGet();
+        wastedRuns.addAndGet(nrOfRuns);
+    }
+
     public int maxInInQueue() {
         return tx.getConfig().getMaxInInQueue();
     }
@@ -96,6 +112,33 @@ public class UniverseStatistics {
         return forwardCount;
     }
 
+    public long mergeFallbacks() {
+        return mergeFallbacks.get();
+    }
+
+    public long wastedRuns() {
+        return wastedRuns.get();
+    }
+
+    public int learnedConflicts() {
+        ConflictModel conflictModel = tx.conflictModel();
+        return conflictModel != null ? conflictModel.size() : 0;
+    }
+
+    /**
+     * An expensive diagnostic: walks the entire last state on the calling thread, so it should not be polled from the
+     * engine's hot path. The result is cached until the last state changes.
+     */
+    public StateFootprint footprint() {
+        State state = tx.lastState();
+        Pair<State, StateFootprint> cached = footprint;
+        if (cached == null || cached.a() != state) {
+            cached = Pair.of(state, StateFootprint.of(state));
+            footprint = cached;
+        }
+        return cached.b();
+    }
+
     public int bumpAndGetTotalChanges() {
         if (totalChanges > maxTotalNrOfChanges()) {
             synchronized (tx) {
@@ -127,7 +170,9 @@ public class UniverseStatistics {
                 + "    forwardCount     = " + forwardCount + "\n" //
                 + "    totalChanges     = " + totalChanges + "\n" //
                 + "    totalChangesEver = " + totalChangesEver//
-                + "    debugging        = " + debugging; //
+                + "    debugging        = " + debugging + "\n" //
+                + "    mergeFallbacks   = " + mergeFallbacks + "\n" //
+                + "    wastedRuns       = " + wastedRuns; //
     }
 
     public String shortString() {
@@ -143,11 +188,11 @@ public class UniverseStatistics {
             return false;
         }
         UniverseStatistics that = (UniverseStatistics) o;
-        return tx == that.tx && debugging == that.debugging && totalChanges == that.totalChanges && runCount == that.runCount && forwardCount == that.forwardCount && totalChangesEver == that.totalChangesEver;
+        return tx == that.tx && debugging == that.debugging && totalChanges == that.totalChanges && runCount == that.runCount && forwardCount == that.forwardCount && totalChangesEver == that.totalChangesEver && mergeFallbacks.get() == that.mergeFallbacks.get() && wastedRuns.get() == that.wastedRuns.get();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(tx, debugging, totalChanges, runCount, forwardCount, totalChangesEver);
+        return Objects.hash(tx, debugging, totalChanges, runCount, forwardCount, totalChangesEver, mergeFallbacks.get(), wastedRuns.get());
     }
 }
@@ -32,12 +32,18 @@ import org.modelingvalue.dclare.NonCheckingObserver.NonCheckingTransaction;
 import org.modelingvalue.dclare.ex.ConsistencyError;
 import org.modelingvalue.dclare.ex.TooManyChangesException;
 
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -69,16 +75,22 @@ public class UniverseTransaction extends MutableTransaction {
     //
     protected final      BlockingQueue<Action<Universe>>                                                    inQueue;
     private final        BlockingQueue<State>                                                               resultQueue             = new LinkedBlockingQueue<>(1);                          //TODO wire onto MoodManager
+    private final        IdentityHashMap<Submission, CompletableFuture<State>>                              futures                 = new IdentityHashMap<>();                               // guarded by itself
+    private final        DiffCache                                                                          diffCache               = new DiffCache();
     private final        State                                                                              emptyState              = createState(StateMap.EMPTY_STATE_MAP);
     private final        State                                                                              startState;
     protected final      ReadOnly                                                                           runOnState              = new ReadOnly(this, Priority.immediate);
     protected final      Derivation                                                                         derivation              = new Derivation(this, Priority.immediate);
     protected final      IdentityDerivation                                                                 identityDerivation      = new IdentityDerivation(this, Priority.immediate);
     private final        UniverseStatistics                                                                 universeStatistics;
+    private final        CostModel                                                                          costModel;
+    private final        ConflictModel                                                                      conflictModel;
     protected final      AtomicReference<Set<Throwable>>                                                    errors                  = new AtomicReference<>(Set.of());
     private final        AtomicReference<Set<Throwable>>                                                    inconsistencies         = new AtomicReference<>(Set.of());
     private final        AtomicReference<Boolean>                                                           orphansDetected         = new AtomicReference<>(null);
-    private final        ConstantState                                                                      constantState           = new ConstantState("CONST", this::handleException);
+    private final        java.util.Set<Mutable>                                                             orphanCandidates        = ConcurrentHashMap.newKeySet();
+    private final        ConstantState                                                                      constantState;
+    private final        ConstantState                                                                      tmpConstantState        = new ConstantState("TEMP", this::handleException);
     private final        StatusProvider<Status>                                                             statusProvider;
     private final        Timer                                                                              timer                   = new Timer("UniverseTransactionTimer", true);
     private final        MutableState                                                                       preInnerStartState      = createMutableState(emptyState);
@@ -90,9 +102,11 @@ public class UniverseTransaction extends MutableTransaction {
     private              List<Action<Universe>>                                                             timeTravelingActions    = List.of(backward, forward);
     private              List<Action<Universe>>                                                             preActions              = List.of();
     private              List<Action<Universe>>                                                             postActions             = List.of();
+    private              List<StateDeltaHandler>                                                            diffHandlers            = List.of();
     private              List<ImperativeTransaction>                                                        imperativeTransactions  = List.of();
-    private              List<State>                                                                        history                 = List.of();
+    private final        StateHistory                                                                       history;
     private              List<State>                                                                        future                  = List.of();
+    private volatile     Action<Universe>                                                                   deferred;
     private              State                                                                              preState;
     private              State                                                                              preOrphansState;
     private              State                                                                              preOuterStartState;
@@ -106,16 +120,22 @@ public class UniverseTransaction extends MutableTransaction {
     private              long                                                                               transactionNumber;
 
     public class Status extends AbstractStatus {
-        public final Mood               mood;
-        public final Action<Universe>   action;
-        public final State              state;
-        public final UniverseStatistics stats;
-        public final Set<Object>        active;
+        public final Mood                   mood;
+        public final Action<Universe>       action;
+        public final List<Action<Universe>> batch;
+        public final State                  state;
+        public final UniverseStatistics     stats;
+        public final Set<Object>            active;
 
         public Status(Mood mood, Action<Universe> action, State state, UniverseStatistics stats, Set<Object> active) {
+            this(mood, action, action != null ? List.of(action) : List.of(), state, stats, active);
+        }
+
+        public Status(Mood mood, Action<Universe> action, List<Action<Universe>> batch, State state, UniverseStatistics stats, Set<Object> active) {
             super();
             this.mood   = mood;
             this.action = action;
+            this.batch  = batch;
             this.state  = state;
             this.stats  = stats;
             this.active = active;
@@ -134,6 +154,10 @@ public class UniverseTransaction extends MutableTransaction {
             return mood == Mood.busy || !active.isEmpty();
         }
 
+        public boolean isIdleAfter(Action<Universe> handled) {
+            return isIdle() && (action == handled || batch.contains(handled));
+        }
+
         @Override
         protected void handleException(Exception e) {
             UniverseTransaction.this.handleException(e);
@@ -152,6 +176,12 @@ public class UniverseTransaction extends MutableTransaction {
         stopped()
     }
 
+    public enum PutResult {
+        accepted(),
+        queueFull(),
+        killed()
+    }
+
     public UniverseTransaction(Universe universe, ContextPool pool) {
         this(universe, pool, new DclareConfig());
     }
@@ -173,8 +203,12 @@ public class UniverseTransaction extends MutableTransaction {
         Status startStatus = new Status(Mood.starting, null, startState, null, Set.of());
         statusProvider     = new StatusProvider<>(this, startStatus);
         this.config        = Objects.requireNonNull(config);
+        history            = new StateHistory(config.getHistoryBudget(), config.getHistoryCheckpoint());
+        constantState      = new ConstantState("CONST", this::handleException, config.getConstantStripes(), config.getMaxSoftConstants(), config.isConstantStatistics());
         inQueue            = new LinkedBlockingQueue<>(config.getMaxInInQueue());
         universeStatistics = new UniverseStatistics(this);
+        costModel          = config.isCostBasedScheduling() || config.isConflictLearning() ? new CostModel() : null;
+        conflictModel      = config.isConflictLearning() ? new ConflictModel() : null;
         start(universe, null);
         preState = startState;
         pool.execute(this::mainLoop);
@@ -188,6 +222,8 @@ public class UniverseTransaction extends MutableTransaction {
         if (stateMap != null) {
             // take care that the startStateMap does not contain the STOPPED state
             stateMap = stateMap.clear(universe, STOPPED);
+            // the observed index buckets are not persisted
+            stateMap = ObservedIndex.rebuild(stateMap, universe);
         }
         return stateMap == null || stateMap.isEmpty() ? emptyState : createState(stateMap);
     }
@@ -217,10 +253,13 @@ public class UniverseTransaction extends MutableTransaction {
                 handling = false; //TODO wire onto MoodManager
                 setIdleMood(state);
                 //==========================================================================
-                Action<Universe> action = take();
+                List<Action<Universe>> submitted = batch(take());
+                List<Action<Universe>> batch = submitted.map(UniverseTransaction::unwrap).toList();
+                Action<Universe> action = batch.first();
                 //==========================================================================
-                setBusyMood(action);
+                setBusyMood(batch);
                 preState = state;
+                Set<Throwable> preErrors = errors.get();
                 universeStatistics.setDebugging(false);
                 handling = true; //TODO wire onto MoodManager
                 if (config.isTraceUniverse()) {
@@ -229,27 +268,30 @@ public class UniverseTransaction extends MutableTransaction {
                 TraceTimer.traceBegin("root");
                 try {
                     timeTraveling = timeTravelingActions.contains(action);
-                    start(action);
+                    for (Action<Universe> a : batch) {
+                        start(a);
+                    }
                     if (action == backward) {
                         if (history.size() > 3) {
-                            future  = future.prepend(state);
-                            state   = history.last();
-                            history = history.removeLast();
+                            future = future.prepend(state);
+                            state  = history.removeLast();
+                            handleTimeTravel(preState, state);
                         }
                     } else if (action == forward) {
                         if (!future.isEmpty()) {
-                            history = history.append(state);
-                            state   = future.first();
-                            future  = future.removeFirst();
+                            history.append(state);
+                            state  = future.first();
+                            future = future.removeFirst();
+                            handleTimeTravel(preState, state);
                         }
                     } else if (action != commit) {
-                        history = history.append(state);
-                        future  = List.of();
-                        if (history.size() > universeStatistics.maxNrOfHistory()) {
-                            history = history.removeFirst();
-                        }
+                        history.append(state);
+                        future = List.of();
+                        history.trim(universeStatistics.maxNrOfHistory());
                         runActions(preActions);
-                        runAction(action);
+                        for (Action<Universe> a : batch) {
+                            runAction(a);
+                        }
                         if (initialized) {
                             runAction(checkConsistency);
                         }
@@ -257,7 +299,7 @@ public class UniverseTransaction extends MutableTransaction {
                         runActions(postActions);
                     }
                     commit(state, timeTraveling, imperativeTransactions.iterator());
-                    if (!killed && inQueue.isEmpty() && isStopped(state)) {
+                    if (!killed && numInQueue() == 0 && isStopped(state)) {
                         break;
                     }
                 } catch (Throwable t) {
@@ -266,8 +308,15 @@ public class UniverseTransaction extends MutableTransaction {
                     if (config.isTraceUniverse()) {
                         System.err.println(DclareTrace.getLineStart("DCLARE", this) + "END TRANSACTION " + this);
                     }
-                    end(action);
+                    for (Action<Universe> a : batch) {
+                        end(a);
+                    }
                     universeStatistics.completeRun();
+                    if (conflictModel != null) {
+                        conflictModel.decay();
+                    }
+                    complete(submitted, errors.get().removeAll(preErrors));
+                    diffCache.clear();
                     TraceTimer.traceEnd("root");
                 }
             } catch (Throwable t) {
@@ -280,10 +329,13 @@ public class UniverseTransaction extends MutableTransaction {
         timer.cancel();
         state.run(() -> UniverseTransaction.this.universe().exit());
         stop();
-        history = history.append(state);
+        history.append(state);
         constantState.stop();
+        tmpConstantState.stop();
         end(state); //TODO wire onto MoodManager
         stopped = true; //TODO wire onto MoodManager
+        cancelFutures();
+        diffCache.clear();
         setStoppedMood(state);
     }
 
@@ -310,7 +362,7 @@ public class UniverseTransaction extends MutableTransaction {
         statusProvider.setNext(p -> {
             Set<Object> newSet = p.active.add(activity);
             assert p.active != newSet;
-            return new Status(p.mood, p.action, p.state, p.stats, newSet);
+            return new Status(p.mood, p.action, p.batch, p.state, p.stats, newSet);
         });
     }
 
@@ -318,20 +370,20 @@ public class UniverseTransaction extends MutableTransaction {
         statusProvider.setNext(p -> {
             Set<Object> newSet = p.active.remove(activity);
             assert p.active != newSet;
-            return new Status(p.mood, p.action, p.state, p.stats, newSet);
+            return new Status(p.mood, p.action, p.batch, p.state, p.stats, newSet);
         });
     }
 
-    private void setBusyMood(Action<Universe> action) {
-        statusProvider.setNext(p -> new Status(Mood.busy, action, p.state, stats().clone(), p.active));
+    private void setBusyMood(List<Action<Universe>> batch) {
+        statusProvider.setNext(p -> new Status(Mood.busy, batch.last(), batch, p.state, stats().clone(), p.active));
     }
 
     private void setIdleMood(State state) {
-        statusProvider.setNext(p -> new Status(Mood.idle, p.action, state, stats().clone(), p.active));
+        statusProvider.setNext(p -> new Status(Mood.idle, p.action, p.batch, state, stats().clone(), p.active));
     }
 
     private void setStoppedMood(State state) {
-        statusProvider.setNext(p -> new Status(Mood.stopped, p.action, state, stats().clone(), p.active));
+        statusProvider.setNext(p -> new Status(Mood.stopped, p.action, p.batch, state, stats().clone(), p.active));
     }
 
     public Action<Universe> waitForBusy() {
@@ -357,7 +409,7 @@ public class UniverseTransaction extends MutableTransaction {
     public State putAndWaitForIdle(Action<Universe> action) {
         StatusIterator<Status> iterator = getStatusIterator();
         put(action);
-        return iterator.waitForStoppedOr(s -> s.isIdle() && s.action == action).state;
+        return iterator.waitForStoppedOr(s -> s.isIdleAfter(action)).state;
     }
 
     public Mood getMood() {
@@ -381,7 +433,7 @@ public class UniverseTransaction extends MutableTransaction {
             if (p.mood == Mood.busy) {
                 UniverseStatistics stats = stats().clone();
                 if (!Objects.equals(p.stats, stats)) {
-                    return new Status(p.mood, p.action, p.state, stats, p.active);
+                    return new Status(p.mood, p.action, p.batch, p.state, stats, p.active);
                 }
             }
             return p;
@@ -393,9 +445,9 @@ public class UniverseTransaction extends MutableTransaction {
         boolean again;
         try {
             do {
-                tmpConstants    = new ConstantState("TEMP", this::handleException);
-                preOrphansState = state;
-                orphansDetected.set(null);
+                tmpConstantState.clear();
+                tmpConstants = tmpConstantState;
+                resetOrphans(state);
                 preOuterStartState = state;
                 state              = incrementChangeId(state);
                 preInnerStartState.setState(state);
@@ -417,8 +469,7 @@ public class UniverseTransaction extends MutableTransaction {
                             } else if (hasInnerQueued(state)) {
                                 again = true;
                                 if (orphansDetected.get() == Boolean.FALSE) {
-                                    preOrphansState = state;
-                                    orphansDetected.set(null);
+                                    resetOrphans(state);
                                 }
                             }
                         }
@@ -428,8 +479,7 @@ public class UniverseTransaction extends MutableTransaction {
                         if (hasMidQueued(state)) {
                             again = true;
                             if (orphansDetected.get() == Boolean.FALSE) {
-                                preOrphansState = state;
-                                orphansDetected.set(null);
+                                resetOrphans(state);
                             }
                         } else if (orphansDetected.get() == null) {
                             state = trigger(state, universe(), clearOrphans, Priority.mid);
@@ -438,7 +488,7 @@ public class UniverseTransaction extends MutableTransaction {
                     }
                 } while (again);
                 universeStatistics.completeForward();
-                tmpConstants.stop();
+                tmpConstants.clear();
                 tmpConstants = null;
             } while (!killed && hasOuterQueued(state));
             return state;
@@ -449,9 +499,20 @@ public class UniverseTransaction extends MutableTransaction {
             outerStartState.setState(emptyState);
             preOuterStartState = null;
             preOrphansState    = null;
+            orphanCandidates.clear();
         }
     }
 
+    private void resetOrphans(State state) {
+        preOrphansState = state;
+        orphansDetected.set(null);
+        orphanCandidates.clear();
+    }
+
+    void orphanCandidate(Mutable mutable) {
+        orphanCandidates.add(mutable);
+    }
+
     protected final State incrementChangeId(State state) {
         return state.set(universe(), Mutable.D_CHANGE_ID, TransactionId.of(transactionNumber++));
     }
@@ -481,7 +542,7 @@ public class UniverseTransaction extends MutableTransaction {
     }
 
     public int numInQueue() {
-        return inQueue.size();
+        return inQueue.size() + (deferred != null ? 1 : 0);
     }
 
     public boolean isHandling() { //TODO wire onto MoodManager
@@ -553,27 +614,49 @@ public class UniverseTransaction extends MutableTransaction {
     protected void checkConsistency(Universe universe) {
         LeafTransaction lt   = LeafTransaction.getCurrent();
         State           post = lt.state();
-        preState.diff(post, o -> o instanceof Mutable && ((Mutable) o).dCheckConsistency()).forEach(e0 -> {
-            Mutable                     mutable = (Mutable) e0.getKey();
-            DefaultMap<Setable, Object> values  = e0.getValue().b();
-            if (mutable.equals(universe()) || mutable.dHasAncestor(universe())) {
-                MutableClass dClass = mutable.dClass();
-                Collection.concat(values.map(Entry::getKey), dClass.dSetables(), dClass.dObservers().map(Observer::exception)).distinct().filter(Setable::checkConsistency).forEach(s -> {
-                    if (!(s instanceof Constant) || constantState.isSet(lt, mutable, (Constant) s)) {
-                        Set<Throwable> es = s.checkConsistency(post, mutable, s instanceof Constant ? constantState.get(lt, mutable, (Constant) s) : values.get(s));
-                        inconsistencies.updateAndGet(es::addAll);
-                    }
-                });
-            } else {
-                checkOrphanState(mutable, values);
-            }
-        });
+        diffCache.share(preState, post);
+        Set<Throwable> found = preState.diff(post, o -> o instanceof Mutable && ((Mutable) o).dCheckConsistency()).reduce(Set.<Throwable> of(), //
+                (es, e0) -> es.addAll(checkConsistency(lt, post, (Mutable) e0.getKey(), e0.getValue().b())), Set::addAll);
+        if (!found.isEmpty()) {
+            inconsistencies.updateAndGet(found::addAll);
+        }
         Set<Throwable> result = inconsistencies.getAndSet(Set.of());
         if (!result.isEmpty()) {
             handleExceptions(result);
         }
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Set<Throwable> checkConsistency(LeafTransaction lt, State post, Mutable mutable, DefaultMap<Setable, Object> values) {
+        if (mutable.equals(universe()) || mutable.dHasAncestor(universe())) {
+            Set<Setable>   plan = constantState.get(lt, mutable.dClass(), MutableClass.D_CONSISTENCY);
+            Set<Throwable> es   = Set.of();
+            for (Setable s : plan) {
+                es = checkConsistency(lt, post, mutable, values, s, es);
+            }
+            for (Entry<Setable, Object> e : values) {
+                if (!plan.contains(e.getKey()) && e.getKey().checkConsistency()) {
+                    es = checkConsistency(lt, post, mutable, values, e.getKey(), es);
+                }
+            }
+            return es;
+        } else {
+            checkOrphanState(mutable, values);
+            return Set.of();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Set<Throwable> checkConsistency(LeafTransaction lt, State post, Mutable mutable, DefaultMap<Setable, Object> values, Setable s, Set<Throwable> es) {
+        if (!(s instanceof Constant)) {
+            return es.addAll(s.checkConsistency(post, mutable, values.get(s)));
+        } else if (constantState.isSet(lt, mutable, (Constant) s)) {
+            return es.addAll(s.checkConsistency(post, mutable, constantState.get(lt, mutable, (Constant) s)));
+        } else {
+            return es;
+        }
+    }
+
     @SuppressWarnings("rawtypes")
     protected void checkOrphanState(Mutable mutable, DefaultMap<Setable, Object> values) {
         if (config.isCheckOrphanState() && !values.isEmpty()) {
@@ -618,17 +701,24 @@ public class UniverseTransaction extends MutableTransaction {
     protected void clearOrphans(Universe universe) {
         LeafTransaction tx        = LeafTransaction.getCurrent();
         State           postState = tx.state();
-        Map<Object, Map<Setable, Pair<Object, Object>>> orphans = preOrphansState//
-                .diff(postState, o -> {
-                    if (o instanceof Mutable && ((Mutable) o).dIsOrphan(postState)) {
-                        return !tx.toBeCleared((Mutable) o).isEmpty();
-                    } else {
-                        return false;
-                    }
-                }, ALL_SETTABLES)//
-                .toMap(Function.identity());
-        orphansDetected.set(!orphans.isEmpty());
-        orphans.forEachOrdered(e0 -> clear(tx, (Mutable) e0.getKey()));
+        if (config.isIncrementalOrphans()) {
+            List<Mutable> orphans = Collection.of(orphanCandidates.toArray(new Mutable[0])).filter(o -> o.dIsOrphan(postState) && !tx.toBeCleared(o).isEmpty()).toList();
+            orphansDetected.set(!orphans.isEmpty());
+            orphans.forEachOrdered(o -> clear(tx, o));
+        } else {
+            diffCache.share(preOrphansState, postState);
+            Map<Object, Map<Setable, Pair<Object, Object>>> orphans = preOrphansState//
+                    .diff(postState, o -> {
+                        if (o instanceof Mutable && ((Mutable) o).dIsOrphan(postState)) {
+                            return !tx.toBeCleared((Mutable) o).isEmpty();
+                        } else {
+                            return false;
+                        }
+                    }, ALL_SETTABLES)//
+                    .toMap(Function.identity());
+            orphansDetected.set(!orphans.isEmpty());
+            orphans.forEachOrdered(e0 -> clear(tx, (Mutable) e0.getKey()));
+        }
     }
 
     private void clear(LeafTransaction tx, Mutable orphan) {
@@ -657,7 +747,115 @@ public class UniverseTransaction extends MutableTransaction {
         }
     }
 
+    public PutResult tryPut(Object id, Runnable action) {
+        return tryPut(Action.of(id, o -> action.run()));
+    }
+
+    public PutResult tryPut(Action<Universe> action) {
+        if (killed || stopped) {
+            return PutResult.killed;
+        } else if (!inQueue.offer(action)) {
+            return PutResult.queueFull;
+        } else {
+            return PutResult.accepted;
+        }
+    }
+
+    public CompletableFuture<State> putAsync(Object id, Runnable action) {
+        return putAsync(Action.of(id, o -> action.run()));
+    }
+
+    /**
+     * Queues the action without blocking the caller. The returned future is completed with the state
+     * at the end of the universe transaction that handled the action, or exceptionally when the action
+     * was rejected, that transaction failed or the universe stopped before the action was handled.
+     * Every call queues its own {@link Submission}, so its future is only completed by the handling of that call,
+     * not by a plain put or another putAsync of the same action.
+     */
+    public CompletableFuture<State> putAsync(Action<Universe> action) {
+        Submission submission = new Submission(action);
+        CompletableFuture<State> future = new CompletableFuture<>();
+        synchronized (futures) {
+            futures.put(submission, future);
+        }
+        PutResult result = tryPut(submission);
+        if (result != PutResult.accepted) {
+            withdraw(submission, new RejectedExecutionException("Action " + action + " rejected: " + result));
+        } else if (stopped) {
+            withdraw(submission, new CancellationException("Universe stopped before action " + action + " was handled"));
+        }
+        return future;
+    }
+
+    private void withdraw(Submission submission, Throwable cause) {
+        CompletableFuture<State> future;
+        synchronized (futures) {
+            future = futures.remove(submission);
+        }
+        if (future != null) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private void complete(List<Action<Universe>> submitted, Set<Throwable> batchErrors) {
+        List<CompletableFuture<State>> done = List.of();
+        synchronized (futures) {
+            if (futures.isEmpty()) {
+                return;
+            }
+            for (Action<Universe> a : submitted) {
+                CompletableFuture<State> future = a instanceof Submission ? futures.remove(a) : null;
+                if (future != null) {
+                    done = done.append(future);
+                }
+            }
+        }
+        Throwable error = batchErrors.isEmpty() ? null : batchErrors.sorted(this::compareThrowable).toList().first();
+        for (CompletableFuture<State> future : done) {
+            if (error == null) {
+                future.complete(state);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private void cancelFutures() {
+        IdentityHashMap<Submission, CompletableFuture<State>> cancelled;
+        synchronized (futures) {
+            cancelled = new IdentityHashMap<>(futures);
+            futures.clear();
+        }
+        cancelled.forEach((s, future) -> future.completeExceptionally(new CancellationException("Universe stopped before action " + s.action + " was handled")));
+    }
+
+    private static Action<Universe> unwrap(Action<Universe> action) {
+        return action instanceof Submission ? ((Submission) action).action : action;
+    }
+
+    /**
+     * One {@link #putAsync(Action)} call of an action. It is unwrapped before the action is batched and run.
+     */
+    private static final class Submission extends Action<Universe> {
+        private final Action<Universe> action;
+
+        private Submission(Action<Universe> action) {
+            super(action.id(), action::run);
+            this.action = action;
+        }
+
+        @Override
+        public String toString() {
+            return action.toString();
+        }
+    }
+
     private Action<Universe> take() {
+        Action<Universe> action = deferred;
+        if (action != null) {
+            deferred = null;
+            return action;
+        }
         try {
             return inQueue.take();
         } catch (InterruptedException e) {
@@ -665,6 +863,44 @@ public class UniverseTransaction extends MutableTransaction {
         }
     }
 
+    private List<Action<Universe>> batch(Action<Universe> first) {
+        List<Action<Universe>> batch = List.of(first);
+        int max = config.getMaxBatchSize();
+        if (max > 1 && isBatchable(unwrap(first))) {
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(config.getMaxBatchWaitMicros());
+            while (batch.size() < max && !killed) {
+                Action<Universe> next = inQueue.peek();
+                if (next == null) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    try {
+                        next = inQueue.poll(wait, TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        throw new Error(e);
+                    }
+                    if (next == null) {
+                        break;
+                    } else if (!isBatchable(unwrap(next))) {
+                        deferred = next;
+                        break;
+                    }
+                } else if (isBatchable(unwrap(next))) {
+                    inQueue.poll();
+                } else {
+                    break;
+                }
+                batch = batch.append(next);
+            }
+        }
+        return batch;
+    }
+
+    protected boolean isBatchable(Action<Universe> action) {
+        return action != init && action != stop && action != commit && !timeTravelingActions.contains(action);
+    }
+
     protected void end(State state) { //TODO wire onto MoodManager
         try {
             resultQueue.put(state);
@@ -698,13 +934,25 @@ public class UniverseTransaction extends MutableTransaction {
 
     public Action<Universe> addDiffHandler(String id, StateDeltaHandler diffHandler) {
         Action<Universe> action = Action.of(id, o -> {
-            LeafTransaction tx = ActionTransaction.getCurrent();
-            diffHandler.handleDelta(tx.universeTransaction().preState(), tx.state(), true, ImperativeTransaction.SETTED_MAP);
+            LeafTransaction tx  = ActionTransaction.getCurrent();
+            State           pre = tx.universeTransaction().preState();
+            diffCache.share(pre, tx.state());
+            diffHandler.handleDelta(pre, tx.state(), true, ImperativeTransaction.SETTED_MAP);
         });
         addPostAction(action);
+        synchronized (this) {
+            diffHandlers = diffHandlers.add(diffHandler);
+        }
         return action;
     }
 
+    private void handleTimeTravel(State pre, State post) {
+        diffCache.share(pre, post);
+        for (StateDeltaHandler diffHandler : diffHandlers) {
+            diffHandler.handleDelta(pre, post, true, ImperativeTransaction.SETTED_MAP);
+        }
+    }
+
     public void addPostAction(Action<Universe> action) {
         synchronized (this) {
             postActions = postActions.add(action);
@@ -780,11 +1028,15 @@ public class UniverseTransaction extends MutableTransaction {
     }
 
     public List<State> history() {
-        return history;
+        return history.states();
+    }
+
+    public void setHistoryArchive(HistoryArchive archive) {
+        history.setArchive(archive);
     }
 
     public Collection<IState> longHistory() {
-        return Collection.concat(Collection.of(innerStartState(), preInnerStartState(), midStartState(), preMidStartState(), outerStartState(), preOuterStartState()), history);
+        return Collection.concat(Collection.of(innerStartState(), preInnerStartState(), midStartState(), preMidStartState(), outerStartState(), preOuterStartState()), history.states());
     }
 
     public ConstantState tmpConstants() {
@@ -812,6 +1064,18 @@ public class UniverseTransaction extends MutableTransaction {
         return universeStatistics;
     }
 
+    public CostModel costModel() {
+        return costModel;
+    }
+
+    public ConflictModel conflictModel() {
+        return conflictModel;
+    }
+
+    public DiffCache diffCache() {
+        return diffCache;
+    }
+
     public void start(Action<Universe> action) {
     }
 
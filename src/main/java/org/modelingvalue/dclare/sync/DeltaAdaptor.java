@@ -118,6 +118,9 @@ public class DeltaAdaptor<C extends MutableClass, M extends Mutable, S extends S
      */
     @SuppressWarnings({"rawtypes", "unchecked"})
     protected void queueDelta(State pre, State post, Boolean last, DefaultMap<Object, Set<Setable>> setted) {
+        if (pre.universeTransaction() != null) {
+            pre.universeTransaction().diffCache().share(pre, post);
+        }
         Map<Object, Map<Setable, Pair<Object, Object>>> deltaMap = pre.diff(post, getObjectFilter(), (Predicate<Setable>) (Object) helper.setableFilter()).toMap(e1 -> e1);
         if (!deltaMap.isEmpty()) {
             try {
@@ -19,6 +19,7 @@ import org.modelingvalue.collections.Collection;
 import org.modelingvalue.collections.Entry;
 import org.modelingvalue.collections.List;
 import org.modelingvalue.collections.Map;
+import org.modelingvalue.dclare.IdCodec;
 
 import java.util.Comparator;
 import java.util.stream.Collectors;
@@ -214,6 +215,10 @@ public class SerialisationPool {
         return string;
     }
 
+    public IdCodec idCodec() {
+        return IdCodec.of(o -> o != null && canSerialize(o) ? serialize(o) : null, this::deserialize);
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> Converter<T> getConverter(Class<T> cls, Map<Class<?>, Converter<?>> map) {
         return (Converter<T>) map.get(cls);
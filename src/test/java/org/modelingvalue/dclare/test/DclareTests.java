@@ -18,30 +18,78 @@ package org.modelingvalue.dclare.test;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.modelingvalue.collections.Collection;
+import org.modelingvalue.collections.Entry;
 import org.modelingvalue.collections.List;
+import org.modelingvalue.collections.Map;
 import org.modelingvalue.collections.Set;
+import org.modelingvalue.collections.util.NotMergeableException;
+import org.modelingvalue.collections.util.Pair;
+import org.modelingvalue.dclare.Action;
+import org.modelingvalue.dclare.CompactStateMap;
+import org.modelingvalue.dclare.ConflictModel;
+import org.modelingvalue.dclare.Constant;
+import org.modelingvalue.dclare.ConstantState;
+import org.modelingvalue.dclare.ConstantStore;
 import org.modelingvalue.dclare.DclareConfig;
+import org.modelingvalue.dclare.DeltaLog;
+import org.modelingvalue.dclare.DoubleSetable;
+import org.modelingvalue.dclare.HistoryArchive;
+import org.modelingvalue.dclare.IdCodec;
+import org.modelingvalue.dclare.IntSetable;
+import org.modelingvalue.dclare.LongSetable;
+import org.modelingvalue.dclare.Mutable;
 import org.modelingvalue.dclare.Observed;
+import org.modelingvalue.dclare.ObservedIndex;
+import org.modelingvalue.dclare.Priority;
 import org.modelingvalue.dclare.Setable;
 import org.modelingvalue.dclare.State;
+import org.modelingvalue.dclare.StateFootprint;
+import org.modelingvalue.dclare.StateMap;
+import org.modelingvalue.dclare.StateMapStore;
+import org.modelingvalue.dclare.TransactionId;
+import org.modelingvalue.dclare.Universe;
 import org.modelingvalue.dclare.UniverseTransaction;
+import org.modelingvalue.dclare.UniverseTransaction.PutResult;
 import org.modelingvalue.dclare.ex.EmptyMandatoryException;
 import org.modelingvalue.dclare.ex.ReferencedOrphanException;
+import org.modelingvalue.dclare.test.support.DeepTree;
 import org.modelingvalue.dclare.test.support.Fibonacci;
 import org.modelingvalue.dclare.test.support.TestMutable;
 import org.modelingvalue.dclare.test.support.TestMutableClass;
 import org.modelingvalue.dclare.test.support.TestUniverse;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.modelingvalue.dclare.SetableModifier.boxCache;
 import static org.modelingvalue.dclare.SetableModifier.containment;
+import static org.modelingvalue.dclare.SetableModifier.durable;
+import static org.modelingvalue.dclare.SetableModifier.indexed;
 import static org.modelingvalue.dclare.SetableModifier.mandatory;
+import static org.modelingvalue.dclare.SetableModifier.preserved;
 import static org.modelingvalue.dclare.test.support.Shared.THE_POOL;
+import static org.modelingvalue.dclare.test.support.Shared.codec;
 import static org.modelingvalue.dclare.test.support.Shared.printState;
 
 @SuppressWarnings("EmptyClassInitializer")
@@ -280,6 +328,840 @@ public class DclareTests {
         printState(universeTransaction, state);
     }
 
+    @Test
+    public void batchedActions() {
+        Observed<TestUniverse, Integer> count               = Observed.of("count", 0);
+        Observed<TestUniverse, Integer> twice               = Observed.of("twice", 0);
+        int                             length              = 100;
+        TestUniverse                    universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", count, twice).observe(u -> twice.set((TestUniverse) u, count.get((TestUniverse) u) * 2)));
+        UniverseTransaction             universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true).withMaxBatchSize(16).withMaxBatchWaitMicros(1000));
+        for (int i = 0; i < length - 1; i++) {
+            universeTransaction.put("add" + i, () -> count.set(universe, Integer::sum, 1));
+        }
+        State state = universeTransaction.putAndWaitForIdle("add" + length, () -> count.set(universe, Integer::sum, 1));
+        assertEquals(length, (int) state.get(universe, count));
+        assertEquals(length * 2, (int) state.get(universe, twice));
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        assertEquals(length, (int) result.get(universe, count));
+    }
+
+    @Test
+    public void asyncActions() {
+        Observed<TestUniverse, Integer> count               = Observed.of("count", 0);
+        int                             length              = 100;
+        TestUniverse                    universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", count));
+        UniverseTransaction             universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        List<CompletableFuture<State>>  futures             = List.of();
+        for (int i = 0; i < length; i++) {
+            futures = futures.append(universeTransaction.putAsync("add" + i, () -> count.set(universe, Integer::sum, 1)));
+        }
+        int previous = 0;
+        for (CompletableFuture<State> future : futures) {
+            int current = future.join().get(universe, count);
+            assertTrue(current > previous);
+            previous = current;
+        }
+        assertEquals(length, previous);
+        CompletableFuture<State> first  = universeTransaction.putAsync("same", () -> count.set(universe, Integer::sum, 1));
+        CompletableFuture<State> second = universeTransaction.putAsync("same", () -> count.set(universe, Integer::sum, 1));
+        assertNotSame(first, second);
+        assertEquals(length + 2, second.join().get(universe, count));
+        assertTrue(first.join().get(universe, count) > length);
+        Action<Universe>         shared = Action.of("shared", u -> count.set(universe, Integer::sum, 1));
+        universeTransaction.put(shared);
+        CompletableFuture<State> own    = universeTransaction.putAsync(shared);
+        assertEquals(length + 4, own.join().get(universe, count));
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        assertEquals(PutResult.killed, universeTransaction.tryPut("late", () -> count.set(universe, Integer::sum, 1)));
+        assertTrue(universeTransaction.putAsync("late", () -> count.set(universe, Integer::sum, 1)).isCompletedExceptionally());
+    }
+
+    @Test
+    public void incrementalOrphans() {
+        Observed<TestUniverse, TestMutable> child               = Observed.of("child", null, containment);
+        Observed<TestMutable, Integer>      value               = Observed.of("value", 0);
+        TestUniverse                        universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", child));
+        TestMutableClass                    clazz               = TestMutableClass.of("Object", value);
+        TestMutable                         object              = TestMutable.of("object", clazz);
+        TestMutable                         loose               = TestMutable.of("loose", clazz);
+        UniverseTransaction                 universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true).withIncrementalOrphans(true));
+        State state = universeTransaction.putAndWaitForIdle("init", () -> {
+            child.set(universe, object);
+            value.set(object, 5);
+        });
+        assertEquals(5, (int) state.get(object, value));
+        state = universeTransaction.putAndWaitForIdle("remove", () -> child.set(universe, (TestMutable) null));
+        assertEquals(0, (int) state.get(object, value));
+        state = universeTransaction.putAndWaitForIdle("loose", () -> value.set(loose, 7));
+        assertEquals(0, (int) state.get(loose, value));
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        assertEquals(0, (int) result.get(object, value));
+    }
+
+    @Test
+    public void boundedSoftConstants() {
+        Observed<TestUniverse, Integer> total               = Observed.of("total", 0);
+        Constant<String, Integer>       length              = Constant.of("length", String::length);
+        TestUniverse                    universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", total));
+        UniverseTransaction             universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true).withMaxSoftConstants(100).withConstantStatistics(true));
+        State state = universeTransaction.putAndWaitForIdle("derive", () -> {
+            int sum = 0;
+            for (int i = 0; i < 1000; i++) {
+                sum += length.get("key" + i) + length.get("key" + i);
+            }
+            total.set(universe, sum);
+        });
+        assertEquals(2 * (10 * 4 + 90 * 5 + 900 * 6), (int) state.get(universe, total));
+        assertTrue(universeTransaction.constantState().nrOfSoftConstants() <= 100);
+        assertEquals(1000, universeTransaction.constantState().statistics(length).misses());
+        assertEquals(1000, universeTransaction.constantState().statistics(length).hits());
+        assertTrue(universeTransaction.constantState().statistics(length).evictions() >= 800);
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void durableConstantStore(@TempDir Path dir) throws IOException {
+        AtomicInteger                  derivations = new AtomicInteger();
+        Constant<TestMutable, Integer> weight      = Constant.of("weight", o -> {
+            derivations.incrementAndGet();
+            return (Integer) o.id() * 10;
+        }, durable);
+        TestMutableClass               clazz       = TestMutableClass.of("Weighted");
+        IdCodec                        codec       = IdCodec.of(o -> o instanceof TestMutable ? "M" + ((TestMutable) o).id() : o == weight ? "weight" : o instanceof Integer ? "I" + o : null, //
+                id -> id.equals("weight") ? weight : id.startsWith("M") ? TestMutable.of(Integer.valueOf(id.substring(1)), clazz) : Integer.valueOf(id.substring(1)));
+        Path                           path        = dir.resolve("constants.bin");
+
+        UniverseTransaction first = weighted(weight, clazz);
+        assertEquals(3, ConstantStore.write(first.constantState(), path, codec));
+        assertEquals(3, derivations.get());
+
+        Observed<TestUniverse, Integer> total               = Observed.of("total", 0);
+        TestUniverse                    universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", total));
+        UniverseTransaction             universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        assertEquals(3, ConstantStore.read(universeTransaction.constantState(), path, codec));
+        State state = universeTransaction.putAndWaitForIdle("weigh", () -> total.set(universe, Collection.range(1, 4).mapToInt(i -> weight.get(TestMutable.of(i, clazz))).sum()));
+        assertEquals(60, (int) state.get(universe, total));
+        assertEquals(3, derivations.get());
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void longConstantValues(@TempDir Path dir) throws IOException {
+        Constant<TestMutable, String>   label               = Constant.of("label", o -> String.valueOf(o.id()).repeat(70_000), durable);
+        TestMutableClass                clazz               = TestMutableClass.of("Labeled");
+        IdCodec                         codec               = IdCodec.of(o -> o instanceof TestMutable ? "M" + ((TestMutable) o).id() : o == label ? "label" : o instanceof String ? "S" + o : null, //
+                id -> id.equals("label") ? label : id.startsWith("M") ? TestMutable.of(Integer.valueOf(id.substring(1)), clazz) : id.substring(1));
+        Observed<TestUniverse, Integer> total               = Observed.of("total", 0);
+        TestUniverse                    universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", total));
+        UniverseTransaction             universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.putAndWaitForIdle("label", () -> total.set(universe, label.get(TestMutable.of(7, clazz)).length()));
+        universeTransaction.stop();
+        assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+
+        Path path = dir.resolve("constants.bin");
+        assertEquals(1, ConstantStore.write(universeTransaction.constantState(), path, codec));
+        ConstantState loaded = new ConstantState("LOADED", Throwable::printStackTrace, 1);
+        assertEquals(1, ConstantStore.read(loaded, path, codec));
+    }
+
+    @Test
+    public void stateMapStore(@TempDir Path dir) throws IOException {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        Observed<TestMutable, String>            name                = Observed.of("name", null);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Stored", value, name);
+        IdCodec                                  codec               = codec(universe, clazz, children, value, name);
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.put("init", () -> {
+            children.set(universe, Collection.range(0, 100).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                value.set(child, (Integer) child.id() * 3);
+                name.set(child, "n" + child.id());
+            }
+        });
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+
+        Path path = dir.resolve("state.bin");
+        assertEquals(200, StateMapStore.write(result, path, codec));
+        StateMap loaded = StateMapStore.read(path, codec);
+        assertEquals(result.get(universe, children), loaded.get(universe, children));
+        for (TestMutable child : result.get(universe, children)) {
+            assertEquals(result.get(child, value), loaded.get(child, value));
+            assertEquals(result.get(child, name), loaded.get(child, name));
+        }
+    }
+
+    @Test
+    public void conflictModelPairs() {
+        TestMutableClass clazz = TestMutableClass.of("Conflicting");
+        TestMutable      a     = TestMutable.of("a", clazz);
+        TestMutable      b     = TestMutable.of("b", clazz);
+        TestMutable      c     = TestMutable.of("c", clazz);
+        TestMutable      d     = TestMutable.of("d", clazz);
+        ConflictModel    model = new ConflictModel();
+        model.record(List.of(List.of(a), List.of(b)));
+        Function<TestMutable, Object> groups = model.groups(List.of(a, b, c, d));
+        assertNotNull(groups.apply(a));
+        assertEquals(groups.apply(a), groups.apply(b));
+        assertNull(groups.apply(c));
+        model.record(List.of(List.of(c), List.of(d)));
+        groups = model.groups(List.of(a, b, c, d));
+        assertEquals(groups.apply(a), groups.apply(b));
+        assertEquals(groups.apply(c), groups.apply(d));
+        assertNotEquals(groups.apply(a), groups.apply(c));
+        assertNull(model.groups(List.of(a, c)).apply(a));
+        for (int i = 0; i < 7; i++) {
+            model.decay();
+        }
+        assertEquals(0, model.size());
+    }
+
+    @Test
+    public void sharedDeltaDiff() {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Diffed", value);
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        CopyOnWriteArrayList<Object[]>           reads               = new CopyOnWriteArrayList<>();
+        for (String id : List.of("first", "second")) {
+            universeTransaction.addDiffHandler(id, (pre, post, inSync, setted) -> reads.add(new Object[]{pre, post, universeTransaction.diffCache().diff(pre, post)}));
+        }
+        universeTransaction.put("init", () -> children.set(universe, Collection.range(0, 16).map(i -> TestMutable.of(i, clazz)).toSet()));
+        for (int r = 1; r <= 4; r++) {
+            int round = r;
+            universeTransaction.put("round" + r, () -> {
+                for (TestMutable child : children.get(universe)) {
+                    value.set(child, round);
+                }
+            });
+        }
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+
+        int hits = 0;
+        for (Object[] read : reads) {
+            State pre  = (State) read[0];
+            State post = (State) read[1];
+            if (read[2] != null) {
+                assertEquals(pre.diff(post, StateMap.ALL_OBJECTS).toList(), read[2]);
+                for (Object[] other : reads) {
+                    if (other != read && other[0] == pre && other[1] == post) {
+                        assertSame(read[2], other[2]);
+                        hits++;
+                    }
+                }
+            }
+        }
+        assertTrue(hits > 0);
+        assertNull(universeTransaction.diffCache().diff(result, result.set(TestMutable.of(0, clazz), value, -1)));
+    }
+
+    @Test
+    public void deltaLogRecovery(@TempDir Path dir) throws IOException {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Logged", value);
+        IdCodec                                  codec               = codec(universe, clazz, children, value);
+        DeltaLog                                 log                 = new DeltaLog(dir, codec, 1 << 12, 4);
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.addDiffHandler("log", log);
+        universeTransaction.put("init", () -> children.set(universe, Collection.range(0, 50).map(i -> TestMutable.of(i, clazz)).toSet()));
+        for (int r = 1; r <= 10; r++) {
+            int round = r;
+            universeTransaction.put("round" + r, () -> {
+                for (TestMutable child : children.get(universe)) {
+                    value.set(child, round * (Integer) child.id());
+                }
+            });
+        }
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        log.close();
+
+        StateMap recovered = DeltaLog.recover(dir, codec);
+        StateMap compacted = log.compact();
+        StateMap reloaded  = DeltaLog.recover(dir, codec);
+        for (StateMap state : List.of(recovered, compacted, reloaded)) {
+            assertEquals(result.get(universe, children), state.get(universe, children));
+            for (TestMutable child : result.get(universe, children)) {
+                assertEquals(result.get(child, value), state.get(child, value));
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void deltaLogUndo(@TempDir Path dir) throws IOException {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Logged", value);
+        IdCodec                                  codec               = codec(universe, clazz, children, value);
+        DeltaLog                                 log                 = new DeltaLog(dir, codec, 1 << 12, 4);
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.addDiffHandler("log", log);
+        universeTransaction.put("init", () -> children.set(universe, Collection.range(0, 8).map(i -> TestMutable.of(i, clazz)).toSet()));
+        for (int r = 1; r <= 10; r++) {
+            int round = r;
+            universeTransaction.put("round" + r, () -> {
+                for (TestMutable child : children.get(universe)) {
+                    value.set(child, round);
+                }
+            });
+        }
+        universeTransaction.backward();
+        universeTransaction.backward();
+        universeTransaction.backward();
+        universeTransaction.forward();
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        log.close();
+
+        assertTrue((int) result.get(TestMutable.of(0, clazz), value) < 10);
+        StateMap recovered = DeltaLog.recover(dir, codec);
+        for (TestMutable child : result.get(universe, children)) {
+            assertEquals(result.get(child, value), recovered.get(child, value));
+        }
+    }
+
+    private static UniverseTransaction weighted(Constant<TestMutable, Integer> weight, TestMutableClass clazz) {
+        Observed<TestUniverse, Integer> total               = Observed.of("total", 0);
+        TestUniverse                    universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", total));
+        UniverseTransaction             universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.putAndWaitForIdle("weigh", () -> total.set(universe, Collection.range(1, 4).mapToInt(i -> weight.get(TestMutable.of(i, clazz))).sum()));
+        universeTransaction.stop();
+        assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        return universeTransaction;
+    }
+
+    @Test
+    public void deltaLogCorruptRecord(@TempDir Path dir) throws IOException {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        Observed<TestMutable, Object>            note                = Observed.of("note", null);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Logged", value, note);
+        IdCodec                                  codec               = codec(universe, clazz, children, value, note);
+        DeltaLog                                 log                 = new DeltaLog(dir, codec, 1 << 8, 1);
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.addDiffHandler("log", log);
+        universeTransaction.putAndWaitForIdle("init", () -> children.set(universe, Collection.range(0, 8).map(i -> TestMutable.of(i, clazz)).toSet()));
+        universeTransaction.putAndWaitForIdle("note", () -> note.set(TestMutable.of(0, clazz), "logged"));
+        universeTransaction.putAndWaitForIdle("unencodable", () -> note.set(TestMutable.of(0, clazz), Duration.ZERO));
+        for (int r = 1; r <= 10; r++) {
+            int round = r;
+            universeTransaction.putAndWaitForIdle("round" + r, () -> {
+                for (TestMutable child : children.get(universe)) {
+                    value.set(child, round);
+                }
+            });
+        }
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        log.close();
+
+        StateMap recovered = DeltaLog.recover(dir, codec);
+        assertNull(recovered.get(TestMutable.of(0, clazz), note));
+        assertEquals(10, (int) recovered.get(TestMutable.of(1, clazz), value));
+
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = Collection.of(files.filter(f -> f.toString().endsWith(".log")).sorted()).toList();
+        }
+        assertTrue(segments.size() > 2);
+        Path   torn  = segments.get(1);
+        byte[] bytes = Files.readAllBytes(torn);
+        bytes[9] ^= 0xFF;
+        Files.write(torn, bytes);
+
+        StateMap partial = DeltaLog.recover(dir, codec);
+        assertTrue((int) partial.get(TestMutable.of(1, clazz), value) < 10);
+        assertTrue(Files.exists(torn.resolveSibling(torn.getFileName() + ".corrupt")));
+        assertTrue(Files.exists(segments.get(2).resolveSibling(segments.get(2).getFileName() + ".corrupt")));
+        assertFalse(Files.exists(segments.get(2)));
+        StateMap again = DeltaLog.recover(dir, codec);
+        assertEquals(partial.get(TestMutable.of(1, clazz), value), again.get(TestMutable.of(1, clazz), value));
+    }
+
+    @Test
+    public void deltaHistory() {
+        List<Integer> full  = timeTravel(new DclareConfig().withDevMode(true));
+        List<Integer> delta = timeTravel(new DclareConfig().withDevMode(true).withHistoryBudget(1L << 20).withHistoryCheckpoint(4));
+        assertEquals(full, delta);
+        assertEquals(0, (int) full.first());
+        for (int i = 1; i < full.size(); i++) {
+            assertTrue(full.get(i - 1) <= full.get(i), "history must be oldest first: " + full);
+        }
+    }
+
+    @Test
+    public void archivedHistory(@TempDir Path dir) throws IOException {
+        Observed<TestUniverse, TestMutable> child    = Observed.of("child", null, containment);
+        Observed<TestMutable, Integer>      value    = Observed.of("value", 0);
+        TestUniverse                        universe = TestUniverse.of("universe", TestMutableClass.of("Universe", child));
+        TestMutable                         object   = TestMutable.of("object", TestMutableClass.of("Object", value));
+        ConcurrentHashMap<Object, String>   ids      = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, Object>   objects  = new ConcurrentHashMap<>();
+        IdCodec                             codec    = IdCodec.of(o -> ids.computeIfAbsent(o, k -> {
+            String id = "#" + objects.size();
+            objects.put(id, k);
+            return id;
+        }), objects::get);
+        try (HistoryArchive archive = new HistoryArchive(dir.resolve("history.bin"), codec)) {
+            UniverseTransaction universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true).withMaxNrOfHistory(8));
+            universeTransaction.setHistoryArchive(archive);
+            universeTransaction.put("init", () -> child.set(universe, object));
+            for (int r = 1; r <= 20; r++) {
+                int round = r;
+                universeTransaction.put("round" + r, () -> value.set(object, round));
+            }
+            for (int i = 0; i < 12; i++) {
+                universeTransaction.backward();
+            }
+            universeTransaction.stop();
+            State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+            printState(universeTransaction, result);
+            assertEquals(8, (int) result.get(object, value));
+            assertTrue(archive.size() > 0);
+        }
+    }
+
+    @Test
+    public void unencodableHistoryNotArchived(@TempDir Path dir) throws IOException {
+        Observed<TestUniverse, TestMutable> child    = Observed.of("child", null, containment);
+        Observed<TestMutable, Integer>      value    = Observed.of("value", 0);
+        TestUniverse                        universe = TestUniverse.of("universe", TestMutableClass.of("Universe", child));
+        TestMutable                         object   = TestMutable.of("object", TestMutableClass.of("Object", value));
+        IdCodec                             codec    = IdCodec.of(o -> value.equals(o) ? "value" : null, id -> value);
+        try (HistoryArchive archive = new HistoryArchive(dir.resolve("history.bin"), codec)) {
+            UniverseTransaction universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true).withMaxNrOfHistory(8));
+            universeTransaction.setHistoryArchive(archive);
+            universeTransaction.put("init", () -> child.set(universe, object));
+            for (int r = 1; r <= 20; r++) {
+                int round = r;
+                universeTransaction.put("round" + r, () -> value.set(object, round));
+            }
+            for (int i = 0; i < 12; i++) {
+                universeTransaction.backward();
+            }
+            universeTransaction.stop();
+            State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+            printState(universeTransaction, result);
+            assertEquals(0, archive.size());
+            assertTrue((int) result.get(object, value) > 8);
+        }
+    }
+
+    private static List<Integer> timeTravel(DclareConfig config) {
+        Observed<TestUniverse, TestMutable> child               = Observed.of("child", null, containment);
+        Observed<TestMutable, Integer>      value               = Observed.of("value", 0);
+        TestUniverse                        universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", child));
+        TestMutable                         object              = TestMutable.of("object", TestMutableClass.of("Object", value));
+        UniverseTransaction                 universeTransaction = new UniverseTransaction(universe, THE_POOL, config);
+        universeTransaction.put("init", () -> child.set(universe, object));
+        for (int r = 1; r <= 20; r++) {
+            int round = r;
+            universeTransaction.put("round" + r, () -> value.set(object, round));
+        }
+        universeTransaction.backward();
+        universeTransaction.backward();
+        universeTransaction.backward();
+        universeTransaction.forward();
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        assertEquals(18, (int) result.get(object, value));
+        return universeTransaction.history().map(s -> s.get(object, value)).toList();
+    }
+
+    @Test
+    public void setableIndex() {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, TestMutable>       target              = Observed.of("target", null, indexed);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Indexed", target, value).observe(o -> value.set(o, target.get(o) != null ? 1 : 0));
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true).withHistoryBudget(1L << 20).withHistoryCheckpoint(4));
+        State state = universeTransaction.putAndWaitForIdle("init", () -> children.set(universe, Collection.range(0, 20).map(i -> TestMutable.of(i, clazz)).toSet()));
+        assertTrue(state.getObjects(target).isEmpty());
+        state = universeTransaction.putAndWaitForIdle("target", () -> {
+            for (TestMutable child : children.get(universe)) {
+                if ((Integer) child.id() % 4 == 0) {
+                    target.set(child, TestMutable.of(((Integer) child.id() + 1) % 20, clazz));
+                }
+            }
+        });
+        assertEquals(Collection.range(0, 20).filter(i -> i % 4 == 0).map(i -> TestMutable.of(i, clazz)).toSet(), state.getObjects(target));
+        assertEquals(state.getObjects(target), state.getObjects(value));
+        state = universeTransaction.putAndWaitForIdle("untarget", () -> target.set(TestMutable.of(4, clazz), (TestMutable) null));
+        assertEquals(4, state.getObjects(target).size());
+        assertEquals(state.getObjects(target), state.getObjects(value));
+        for (State history : universeTransaction.history()) {
+            assertEquals(history.getObjects(TestMutable.class).filter(m -> history.get(m, target) != null).toSet(), history.getObjects(target));
+        }
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void observedIndexRebuiltOnSeed(@TempDir Path dir) throws IOException {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, String>            name                = Observed.of("name", null);
+        ObservedIndex<TestMutable, String>       byName              = ObservedIndex.of(name);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Named", name);
+        IdCodec                                  codec               = codec(universe, clazz, children, name);
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.put("init", () -> {
+            children.set(universe, Collection.range(0, 12).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                name.set(child, "n" + (Integer) child.id() % 3);
+            }
+        });
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        Path path = dir.resolve("state.bin");
+        StateMapStore.write(result, path, codec);
+
+        StateMap            stored = StateMapStore.read(path, codec);
+        assertEquals(4, byName.get(result, "n0").size());
+        UniverseTransaction seeded = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true), null, stored);
+        State               state  = seeded.putAndWaitForIdle("rename", () -> name.set(TestMutable.of(0, clazz), "n1"));
+        assertEquals(3, byName.get(state, "n0").size());
+        assertEquals(5, byName.get(state, "n1").size());
+        assertEquals(4, byName.get(state, "n2").size());
+        seeded.stop();
+        State end = assertDoesNotThrow(() -> universe.waitForEnd(seeded));
+        printState(seeded, end);
+    }
+
+    @Test
+    public void observedIndex() {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, String>            name                = Observed.of("name", null);
+        Observed<TestMutable, Integer>           twins               = Observed.of("twins", 0);
+        ObservedIndex<TestMutable, String>       byName              = ObservedIndex.of(name);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        AtomicInteger                            n2Lookups           = new AtomicInteger();
+        TestMutableClass                         clazz               = TestMutableClass.of("Named", name, twins).observe(o -> {
+            if ("n2".equals(name.get(o))) {
+                n2Lookups.incrementAndGet();
+            }
+            twins.set(o, name.get(o) == null ? 0 : byName.get(name.get(o)).size() - 1);
+        });
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        State state = universeTransaction.putAndWaitForIdle("init", () -> {
+            children.set(universe, Collection.range(0, 12).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                name.set(child, "n" + (Integer) child.id() % 3);
+            }
+        });
+        assertEquals(4, byName.get(state, "n0").size());
+        assertEquals(3, (int) state.get(TestMutable.of(0, clazz), twins));
+        int lookups = n2Lookups.get();
+        state = universeTransaction.putAndWaitForIdle("rename", () -> name.set(TestMutable.of(0, clazz), "n1"));
+        assertEquals(lookups, n2Lookups.get());
+        assertEquals(3, byName.get(state, "n0").size());
+        assertEquals(5, byName.get(state, "n1").size());
+        assertEquals(2, (int) state.get(TestMutable.of(3, clazz), twins));
+        assertEquals(4, (int) state.get(TestMutable.of(0, clazz), twins));
+        assertEquals(4, (int) state.get(TestMutable.of(1, clazz), twins));
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void boxCachedSetables() {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           count               = Observed.of("count", 0, boxCache);
+        Observed<TestMutable, Long>              total               = Observed.of("total", 0L, boxCache);
+        Observed<TestMutable, Double>            half                = Observed.of("half", 0.0, boxCache);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Counter", count, total, half) //
+                .observe(o -> total.set(o, count.get(o) * 1_000_000_000L)) //
+                .observe(o -> half.set(o, count.get(o) / 2.0));
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        State state = universeTransaction.putAndWaitForIdle("init", () -> {
+            children.set(universe, Collection.range(0, 8).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                count.set(child, 1000);
+            }
+        });
+        assertEquals(1000, (int) state.get(TestMutable.of(0, clazz), count));
+        assertEquals(1_000_000_000_000L, (long) state.get(TestMutable.of(1, clazz), total));
+        assertEquals(500.0, (double) state.get(TestMutable.of(2, clazz), half));
+        assertSame(state.get(TestMutable.of(3, clazz), count), state.get(TestMutable.of(4, clazz), count));
+        assertSame(state.get(TestMutable.of(3, clazz), total), state.get(TestMutable.of(4, clazz), total));
+        state = universeTransaction.putAndWaitForIdle("reset", () -> count.set(TestMutable.of(0, clazz), 0));
+        assertNull(state.getProperties(TestMutable.of(0, clazz)).getEntry(count));
+        assertEquals(0.0, (double) state.get(TestMutable.of(0, clazz), half));
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void primitiveSetables() {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        IntSetable<TestMutable>                  count               = IntSetable.of("count", 0);
+        LongSetable<TestMutable>                 total               = LongSetable.of("total", 0L);
+        DoubleSetable<TestMutable>               half                = DoubleSetable.of("half", 0.0);
+        IntSetable<TestMutable>                  negated             = IntSetable.of("negated", 0);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Counter") //
+                .observe(o -> total.setLong(o, count.getInt(o) * 1_000_000_000L)) //
+                .observe(o -> half.setDouble(o, count.getInt(o) / 2.0)) //
+                .observe(o -> negated.setInt(o, -count.getInt(o)));
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        State state = universeTransaction.putAndWaitForIdle("init", () -> {
+            children.set(universe, Collection.range(0, 8).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                count.setInt(child, 1000);
+            }
+        });
+        for (int i = 0; i < 8; i++) {
+            TestMutable child = TestMutable.of(i, clazz);
+            assertEquals(1000, count.getInt(state, child));
+            assertEquals(1_000_000_000_000L, total.getLong(state, child));
+            assertEquals(500.0, half.getDouble(state, child));
+            assertEquals(-1000, negated.getInt(state, child));
+        }
+        state = universeTransaction.putAndWaitForIdle("reset", () -> count.setInt(TestMutable.of(0, clazz), 0));
+        assertEquals(0.0, half.getDouble(state, TestMutable.of(0, clazz)));
+        assertEquals(0, negated.getInt(state, TestMutable.of(0, clazz)));
+        assertEquals(1000, count.getInt(state, TestMutable.of(1, clazz)));
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void stateFootprint() {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        Observed<TestMutable, Set<String>>       tags                = Observed.of("tags", Set.of());
+        Set<String>                              shared              = Collection.range(0, 100).map(i -> "tag" + i).toSet();
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Tagged", value, tags).observe(o -> tags.set(o, value.get(o) > 0 ? shared : Set.of()));
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.put("init", () -> {
+            children.set(universe, Collection.range(0, 64).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                value.set(child, (Integer) child.id() + 1);
+            }
+        });
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+
+        StateFootprint footprint = universeTransaction.stats().footprint();
+        System.err.println(footprint);
+        assertEquals(result.size(), footprint.objects());
+        assertEquals(64, footprint.bySetable().get(value).entries());
+        assertEquals(64, footprint.bySetable().get(tags).entries());
+        assertTrue(footprint.byClass().get(clazz).entries() >= 2 * 64);
+        assertTrue(footprint.bySetable().get(tags).bytes() < 64 * 100 * 8);
+        assertSame(footprint, universeTransaction.stats().footprint());
+        assertTrue(footprint.byCategory().get(StateFootprint.Category.observers).entries() > 0);
+        assertTrue(footprint.byCategory().get(StateFootprint.Category.model).bytes() < footprint.bytes());
+    }
+
+    @Test
+    public void changeIdPropagation() {
+        DeepTree            tree                = new DeepTree(4, 2, preserved);
+        UniverseTransaction universeTransaction = new UniverseTransaction(tree.universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.putAndWaitForIdle("init", tree::build);
+        State state = universeTransaction.putAndWaitForIdle("change", () -> {
+            for (TestMutable leaf : tree.leafs.sublist(0, 4)) {
+                tree.value.set(leaf, 1);
+            }
+        });
+        TransactionId txid = state.get(tree.leafs.get(0), Mutable.D_CHANGE_ID);
+        assertEquals(4, tree.total(state));
+        assertEquals(txid, state.get(tree.leafs.get(3), Mutable.D_CHANGE_ID));
+        assertEquals(txid, state.get(tree.node("16.0"), Mutable.D_CHANGE_ID));
+        assertEquals(txid, state.get(tree.node("4.0"), Mutable.D_CHANGE_ID));
+        assertTrue(state.get(tree.node("16.1"), Mutable.D_CHANGE_ID).number() < txid.number());
+        assertTrue(state.get(tree.leafs.get(4), Mutable.D_CHANGE_ID).number() < txid.number());
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> tree.universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void changeIdPropagationOnMove() {
+        DeepTree            tree                = new DeepTree(4, 2, preserved);
+        UniverseTransaction universeTransaction = new UniverseTransaction(tree.universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.putAndWaitForIdle("init", tree::build);
+        TestMutable moved = tree.leafs.get(0);
+        State state = universeTransaction.putAndWaitForIdle("change and move", () -> {
+            tree.value.set(moved, 1);
+            tree.children.set(tree.node("16.1"), Set::add, moved);
+        });
+        TransactionId txid = state.get(moved, Mutable.D_CHANGE_ID);
+        assertEquals(1, tree.total(state));
+        assertEquals(3, state.get(tree.node("16.0"), tree.children).size());
+        assertEquals(txid, state.get(tree.node("16.0"), Mutable.D_CHANGE_ID));
+        assertEquals(txid, state.get(tree.node("16.1"), Mutable.D_CHANGE_ID));
+        assertEquals(txid, state.get(tree.node("4.0"), Mutable.D_CHANGE_ID));
+        assertTrue(state.get(tree.node("16.2"), Mutable.D_CHANGE_ID).number() < txid.number());
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> tree.universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void dirtyTreeScheduling() {
+        dirtyTree(new DclareConfig().withDevMode(true));
+        dirtyTree(new DclareConfig().withDevMode(true).withDirtyTreeScheduling(true));
+    }
+
+    private static void dirtyTree(DclareConfig config) {
+        DeepTree                                 tree = new DeepTree(4, 3);
+        ConcurrentHashMap<Object, AtomicInteger> runs = new ConcurrentHashMap<>();
+        tree.clazz.observe(n -> {
+            tree.total.get(n);
+            runs.computeIfAbsent(n.id(), k -> new AtomicInteger()).incrementAndGet();
+        });
+        UniverseTransaction universeTransaction = new UniverseTransaction(tree.universe, THE_POOL, config);
+        universeTransaction.putAndWaitForIdle("init", tree::build);
+        runs.clear();
+        State state = universeTransaction.putAndWaitForIdle("change", () -> {
+            tree.value.set(tree.leafs.get(0), 1);
+            tree.value.set(tree.leafs.get(1), 1);
+        });
+        assertEquals(2, tree.total(state));
+        assertEquals(Set.of("n0", "n1", "64.0", "16.0", "4.0"), Collection.of(runs.keySet()).toSet());
+        for (TestMutable node : state.getObjects(TestMutable.class)) {
+            for (Priority priority : Priority.NON_SCHEDULED) {
+                assertTrue(state.get(node, priority.children).isEmpty());
+                assertTrue(state.get(node, priority.actions).isEmpty());
+            }
+        }
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> tree.universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @RepeatedTest(16)
+    public void singleBranchMerge() {
+        Observed<TestUniverse, List<TestMutable>> containers          = Observed.of("containers", List.of(), containment);
+        Observed<TestUniverse, Integer>           stage               = Observed.of("stage", 0);
+        Observed<TestMutable, Set<TestMutable>>   items               = Observed.of("items", Set.of(), containment);
+        Observed<TestMutable, String>             label               = Observed.of("label", null);
+        Observed<TestMutable, String>             where               = Observed.of("where", null);
+        TestMutableClass                          itemClass           = TestMutableClass.of("Item", where).observe(i -> {
+            Mutable parent = i.dParent();
+            where.set(i, parent != null ? label.get((TestMutable) parent) : null);
+        });
+        TestMutableClass                          containerClass      = TestMutableClass.of("Container", items, label).observe(c -> label.set(c, c.id() + ":" + items.get(c).size()));
+        TestMutable                               x                   = TestMutable.of("x", itemClass);
+        TestMutable                               y                   = TestMutable.of("y", itemClass);
+        TestUniverse                              universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", containers, stage).observe(u -> {
+            List<TestMutable> cs = Collection.range(0, 8).map(i -> TestMutable.of(i, containerClass)).toList();
+            containers.set(u, cs);
+            int s = stage.get(u);
+            items.set(cs.get(0), s == 0 ? Set.of(x) : Set.of());
+            items.set(cs.get(1), s == 0 ? Set.of() : s == 1 ? Set.of(x) : Set.of(x, y));
+        }));
+        UniverseTransaction                       universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        State state = universeTransaction.putAndWaitForIdle("init", () -> stage.set(universe, 0));
+        assertEquals("0:1", state.get(x, where));
+        state = universeTransaction.putAndWaitForIdle("move", () -> stage.set(universe, 1));
+        assertEquals("1:1", state.get(x, where));
+        state = universeTransaction.putAndWaitForIdle("grow", () -> stage.set(universe, 2));
+        assertEquals("1:2", state.get(x, where));
+        assertEquals("1:2", state.get(y, where));
+
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+    }
+
+    @Test
+    public void compactStateMap() {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        Observed<TestMutable, String>            name                = Observed.of("name", "anonymous");
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Slotted", value, name).observe(o -> name.set(o, (Integer) o.id() % 4 == 0 ? null : "n" + value.get(o)));
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withDevMode(true));
+        universeTransaction.put("init", () -> {
+            children.set(universe, Collection.range(0, 64).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                value.set(child, (Integer) child.id() * 3);
+            }
+        });
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+
+        CompactStateMap compact = CompactStateMap.of(result);
+        assertEquals(result.size(), compact.size());
+        result.forEach((o, s, v) -> assertEquals(v, compact.get(o, s)));
+        assertNull(compact.get(TestMutable.of(4, clazz), name));
+        assertEquals("anonymous", compact.get(TestMutable.of(100, clazz), name));
+        assertTrue(result.diff(compact.toStateMap()).isEmpty());
+
+        TestMutable     one     = TestMutable.of(1, clazz);
+        TestMutable     two     = TestMutable.of(2, clazz);
+        TestMutable     fresh   = TestMutable.of(100, clazz);
+        CompactStateMap changed = compact.set(one, value, 42);
+        assertSame(compact, compact.set(one, value, 3));
+        assertEquals(3, (int) compact.get(one, value));
+        assertEquals(42, (int) changed.get(one, value));
+        assertTrue(result.set(one, value, 42).diff(changed.toStateMap()).isEmpty());
+        assertTrue(result.set(fresh, name, null).diff(compact.set(fresh, name, null).toStateMap()).isEmpty());
+        List<Entry<Object, Map<Setable, Pair<Object, Object>>>> diff = compact.diff(changed).toList();
+        assertEquals(1, diff.size());
+        assertEquals(Pair.of(3, 42), diff.get(0).getValue().get(value));
+        assertEquals(compact.toStateMap().diff(changed.toStateMap()).toList(), diff);
+
+        State           a       = result.set(one, value, 42).set(two, name, "two");
+        State           b       = result.set(two, value, 7).set(fresh, value, 1);
+        State           merged  = result.merge(null, new State[]{a, b}, 2);
+        CompactStateMap cmerged = compact.merge(new CompactStateMap[]{CompactStateMap.of(a), CompactStateMap.of(b)}, 2);
+        assertTrue(merged.diff(cmerged.toStateMap()).isEmpty());
+        assertEquals(merged.diff(result).toList(), cmerged.diff(compact).toList());
+        State c = result.set(one, value, 43);
+        assertThrows(NotMergeableException.class, () -> result.merge(null, new State[]{a, c}, 2));
+        assertThrows(NotMergeableException.class, () -> compact.merge(new CompactStateMap[]{CompactStateMap.of(a), CompactStateMap.of(c)}, 2));
+    }
+
     @Test
     public void orphanReferenceTest() {
         Observed<TestUniverse, TestMutable> child               = Observed.of("child", null, containment);
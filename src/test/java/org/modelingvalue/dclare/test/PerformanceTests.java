@@ -0,0 +1,431 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare.test;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelingvalue.collections.Collection;
+import org.modelingvalue.collections.DefaultMap;
+import org.modelingvalue.collections.Entry;
+import org.modelingvalue.collections.List;
+import org.modelingvalue.collections.Set;
+import org.modelingvalue.collections.util.ContextThread;
+import org.modelingvalue.collections.util.ContextThread.ContextPool;
+import org.modelingvalue.dclare.CompactStateMap;
+import org.modelingvalue.dclare.Constant;
+import org.modelingvalue.dclare.CostModel;
+import org.modelingvalue.dclare.DclareConfig;
+import org.modelingvalue.dclare.Mutable;
+import org.modelingvalue.dclare.MutableClass;
+import org.modelingvalue.dclare.Observed;
+import org.modelingvalue.dclare.Observer;
+import org.modelingvalue.dclare.Setable;
+import org.modelingvalue.dclare.SetableModifier;
+import org.modelingvalue.dclare.State;
+import org.modelingvalue.dclare.StateMap;
+import org.modelingvalue.dclare.UniverseTransaction;
+import org.modelingvalue.dclare.test.support.DeepTree;
+import org.modelingvalue.dclare.test.support.TestMutable;
+import org.modelingvalue.dclare.test.support.TestMutableClass;
+import org.modelingvalue.dclare.test.support.TestNewable;
+import org.modelingvalue.dclare.test.support.TestNewableClass;
+import org.modelingvalue.dclare.test.support.TestUniverse;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.modelingvalue.dclare.SetableModifier.containment;
+import static org.modelingvalue.dclare.SetableModifier.preserved;
+import static org.modelingvalue.dclare.test.support.Shared.THE_POOL;
+import static org.modelingvalue.dclare.test.support.Shared.printState;
+import static org.modelingvalue.dclare.test.support.Shared.timed;
+
+@Tag("benchmark")
+public class PerformanceTests {
+    private static final int WIDE_WIDTH  = 10_000;
+    private static final int WIDE_ROUNDS = 8;
+    private static final int SKEW_DEPTH  = 5;
+    private static final int SKEW_SPIN   = 2_000;
+    private static final int SKEW_ROUNDS = 8;
+    private static final int FRESH_WIDTH = 1_000;
+    private static final int DEEP_FANOUT = 4;
+    private static final int DEEP_DEPTH  = 7;
+    private static final int MADE_WIDTH  = 1_000;
+    private static final int MADE_ROUNDS = 32;
+    private static final int HUGE_WIDTH  = 1_000_000;
+
+    private static final boolean ALLOCATION_COUNTERS = allocationCounters();
+
+    @Test
+    public void widePools() {
+        ContextPool single = ContextThread.createPool(1, (t, e) -> e.printStackTrace());
+        try {
+            wide(single);
+            wide(THE_POOL);
+            State sequential = timed("wide model, pool of 1 thread", () -> wide(single));
+            State parallel   = timed("wide model, shared pool", () -> wide(THE_POOL));
+            assertEquals(sequential.getObjects(TestMutable.class).size(), parallel.getObjects(TestMutable.class).size());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void skewedCostModel() {
+        skewed(new DclareConfig(), "skewed model, warmup random");
+        skewed(new DclareConfig().withCostBasedScheduling(true), "skewed model, warmup cost based");
+        UniverseTransaction random   = skewed(new DclareConfig(), "skewed model, random split");
+        UniverseTransaction balanced = skewed(new DclareConfig().withCostBasedScheduling(true), "skewed model, cost based split");
+        assertEquals(random.currentState().getObjects(TestMutable.class).size(), balanced.currentState().getObjects(TestMutable.class).size());
+        assertEquals(checksum(random), checksum(balanced));
+        CostModel         costModel = balanced.costModel();
+        List<TestMutable> roots     = balanced.currentState().getObjects(TestMutable.class).filter(m -> m.id().equals("big") || m.id().toString().length() == 2).toList();
+        TestMutable       big       = roots.filter(m -> m.id().equals("big")).findAny().orElseThrow();
+        double            small     = roots.filter(m -> m != big).reduce(0.0, (t, m) -> Math.max(t, costModel.estimate(m)), Math::max);
+        assertEquals(64, roots.size());
+        assertTrue(small < costModel.estimate(big));
+    }
+
+    private static UniverseTransaction skewed(DclareConfig config, String name) {
+        Observed<TestUniverse, Set<TestMutable>> roots               = Observed.of("roots", Set.of(), containment);
+        Observed<TestUniverse, Long>             seed                = Observed.of("seed", 0L);
+        Observed<TestMutable, Set<TestMutable>>  children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Long>              hash                = Observed.of("hash", 0L);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", roots, seed));
+        TestMutableClass                         clazz               = TestMutableClass.of("Skewed", children, hash).observe(o -> {
+            String id = o.id().toString();
+            if (id.startsWith("big") ? id.length() < 3 + SKEW_DEPTH : id.length() < 4) {
+                for (int i = 0; i < 8; i++) {
+                    children.set(o, Set::add, TestMutable.of(id + i, o.dClass()));
+                }
+            }
+        }).observe(o -> hash.set(o, spin(seed.get(universe) + o.id().hashCode(), o.id().toString().startsWith("big") ? SKEW_SPIN : 1)));
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, config.withMaxTotalNrOfChanges(1000000000));
+        universeTransaction.putAndWaitForIdle("init", () -> roots.set(universe, Collection.range(0, 64).map(i -> TestMutable.of(i == 0 ? "big" : "s" + (char) ('A' + i), clazz)).toSet()));
+        long t0 = System.nanoTime();
+        for (int r = 1; r <= SKEW_ROUNDS; r++) {
+            long round = r;
+            universeTransaction.putAndWaitForIdle("round" + r, () -> seed.set(universe, round));
+        }
+        System.err.printf("**** %-56s %6d ms%n", name, (System.nanoTime() - t0) / 1_000_000);
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        return universeTransaction;
+    }
+
+    private static long spin(long x, int n) {
+        for (int i = 0; i < n; i++) {
+            x = x * 6364136223846793005L + 1442695040888963407L;
+        }
+        return x;
+    }
+
+    private static long checksum(UniverseTransaction universeTransaction) {
+        State state = universeTransaction.currentState();
+        return state.getObjects(TestMutable.class).reduce(0L, (t, m) -> t + state.getProperties(m).filter(e -> "hash".equals(e.getKey().id())).reduce(0L, (h, e) -> h + (Long) e.getValue(), Long::sum), Long::sum);
+    }
+
+    @Test
+    public void conflictLearning() {
+        UniverseTransaction plain   = conflicting(new DclareConfig().withCostBasedScheduling(true));
+        UniverseTransaction learned = conflicting(new DclareConfig().withConflictLearning(true));
+        System.err.printf("**** conflicting model, merge fallbacks %d -> %d, wasted runs %d -> %d%n", //
+                plain.stats().mergeFallbacks(), learned.stats().mergeFallbacks(), plain.stats().wastedRuns(), learned.stats().wastedRuns());
+        assertEquals(plain.currentState().getObjects(TestMutable.class).size(), learned.currentState().getObjects(TestMutable.class).size());
+        assertTrue(learned.stats().mergeFallbacks() <= plain.stats().mergeFallbacks());
+        assertTrue(learned.stats().wastedRuns() <= plain.stats().wastedRuns());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UniverseTransaction conflicting(DclareConfig config) {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           source              = Observed.of("source", 0);
+        Observed<TestMutable, Integer>           shared              = Observed.of("shared", 0);
+        Observed<TestMutable, Integer>[]         work                = new Observed[6];
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Conflicting", source, shared);
+        clazz.observe(shared, o -> source.get(o) * 2).observe(shared, o -> source.get(o) + source.get(o));
+        for (int i = 0; i < work.length; i++) {
+            Observed<TestMutable, Integer> w = Observed.of("work" + i, 0);
+            work[i] = w;
+            clazz.observe(w, o -> spin(source.get(o)));
+        }
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, config.withMaxTotalNrOfChanges(1000000000));
+        universeTransaction.put("init", () -> children.set(universe, Collection.range(0, 256).map(i -> TestMutable.of(i, clazz)).toSet()));
+        for (int r = 1; r <= WIDE_ROUNDS; r++) {
+            int round = r;
+            universeTransaction.put("round" + r, () -> {
+                for (TestMutable child : children.get(universe)) {
+                    source.set(child, round);
+                }
+            });
+        }
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        for (TestMutable child : result.get(universe, children)) {
+            assertEquals(WIDE_ROUNDS * 2, (int) result.get(child, shared));
+        }
+        return universeTransaction;
+    }
+
+    private static int spin(int seed) {
+        int r = seed;
+        for (int i = 0; i < 100_000; i++) {
+            r = r * 31 + i;
+        }
+        return r;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Test
+    public void consistencyAllocation() {
+        assumeTrue(ALLOCATION_COUNTERS, "no per thread allocation counters in this JVM");
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        Observed<TestMutable, TestMutable>       peer                = Observed.of("peer", null);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Checked", value, peer);
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withMaxTotalNrOfChanges(1000000000));
+        Set<Setable>[]                           plan                = new Set[1];
+        universeTransaction.putAndWaitForIdle("init", () -> {
+            children.set(universe, Collection.range(0, WIDE_WIDTH).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                peer.set(child, TestMutable.of((Integer) child.id() == 0 ? WIDE_WIDTH - 1 : (Integer) child.id() - 1, clazz));
+            }
+            plan[0] = MutableClass.D_CONSISTENCY.get(clazz);
+        });
+        long t0 = System.nanoTime();
+        for (int r = 1; r <= WIDE_ROUNDS; r++) {
+            int round = r;
+            universeTransaction.putAndWaitForIdle("round" + r, () -> {
+                for (TestMutable child : children.get(universe)) {
+                    value.set(child, round);
+                }
+            });
+        }
+        System.err.printf("**** consistency checked model, %6d ms%n", (System.nanoTime() - t0) / 1_000_000);
+        universeTransaction.stop();
+        State                             result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        List<DefaultMap<Setable, Object>> values = result.getObjects(TestMutable.class).map(result::getProperties).toList();
+        long                              old    = 0, cached = 0;
+        for (int r = 0; r < 2; r++) {
+            long bytes = threadAllocatedBytes();
+            old = values.reduce(0L, (n, v) -> n + Collection.concat(v.map(Entry::getKey), clazz.dSetables(), clazz.dObservers().map(Observer::exception)).distinct().filter(Setable::checkConsistency).count(), Long::sum);
+            long oldBytes = threadAllocatedBytes() - bytes;
+            bytes = threadAllocatedBytes();
+            cached = values.reduce(0L, (n, v) -> n + plan[0].size() + v.filter(e -> !plan[0].contains(e.getKey()) && e.getKey().checkConsistency()).count(), Long::sum);
+            long cachedBytes = threadAllocatedBytes() - bytes;
+            if (r == 1) {
+                System.err.printf("**** consistency selection, %6d bytes per object with per object concat, %6d bytes with cached plan%n", oldBytes / values.size(), cachedBytes / values.size());
+                assertTrue(cachedBytes < oldBytes);
+            }
+        }
+        assertEquals(old, cached);
+        printState(universeTransaction, result);
+    }
+
+    private static boolean allocationCounters() {
+        try {
+            return Class.forName("com.sun.management.ThreadMXBean").isInstance(ManagementFactory.getThreadMXBean()) && //
+                    ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).isThreadAllocatedMemorySupported();
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static long threadAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long allocatedBytes() {
+        if (!ALLOCATION_COUNTERS) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean bean  = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long                            total = 0;
+        for (long bytes : bean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    @Test
+    public void changeIdPropagation() {
+        deep(new DclareConfig(), preserved);
+        long  bytes  = allocatedBytes();
+        long  t0     = System.nanoTime();
+        State result = deep(new DclareConfig(), preserved);
+        long  writes = (long) Math.pow(DEEP_FANOUT, DEEP_DEPTH) * WIDE_ROUNDS;
+        System.err.printf("**** deep model change ids, %6d ms, %6d bytes allocated per leaf write%n", (System.nanoTime() - t0) / 1_000_000, (allocatedBytes() - bytes) / writes);
+        assertTrue(result.getObjects(TestMutable.class).allMatch(m -> result.get(m, Mutable.D_CHANGE_ID) != null));
+    }
+
+    private static State deep(DclareConfig config, SetableModifier... valueModifiers) {
+        DeepTree            tree                = new DeepTree(DEEP_FANOUT, DEEP_DEPTH, valueModifiers);
+        UniverseTransaction universeTransaction = new UniverseTransaction(tree.universe, THE_POOL, config.withMaxTotalNrOfChanges(1000000000));
+        universeTransaction.put("init", tree::build);
+        for (int r = 1; r <= WIDE_ROUNDS; r++) {
+            int round = r;
+            universeTransaction.put("round" + r, () -> {
+                for (TestMutable leaf : tree.leafs) {
+                    tree.value.set(leaf, round);
+                }
+            });
+        }
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> tree.universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        assertEquals(WIDE_ROUNDS * tree.leafs.size(), tree.total(result));
+        return result;
+    }
+
+    @Test
+    public void constructWithHistoryBudget() {
+        DclareConfig full   = new DclareConfig().withMaxNrOfHistory(MADE_ROUNDS);
+        DclareConfig budget = new DclareConfig().withMaxNrOfHistory(MADE_ROUNDS).withHistoryBudget(1L << 24).withHistoryCheckpoint(8);
+        constructing(full);
+        constructing(budget);
+        State fullResult   = timed("constructing model, full history", () -> constructing(full));
+        State budgetResult = timed("constructing model, budgeted history", () -> constructing(budget));
+        assertEquals(fullResult.getObjects(TestNewable.class).size(), budgetResult.getObjects(TestNewable.class).size());
+    }
+
+    private static State constructing(DclareConfig config) {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        Observed<TestMutable, TestNewable>       made                = Observed.of("made", null, containment);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestNewableClass                         madeClass           = TestNewableClass.of("Made", TestMutable::id);
+        TestMutableClass                         clazz               = TestMutableClass.of("Constructing", value, made).observe(o -> made.set(o, TestNewable.create(madeClass, value.get(o))));
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, config.withMaxTotalNrOfChanges(1000000000));
+        universeTransaction.put("init", () -> children.set(universe, Collection.range(0, MADE_WIDTH).map(i -> TestMutable.of(i, clazz)).toSet()));
+        for (int r = 1; r <= MADE_ROUNDS; r++) {
+            int round = r;
+            universeTransaction.put("round" + r, () -> {
+                for (TestMutable child : children.get(universe)) {
+                    value.set(child, round);
+                }
+            });
+        }
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        for (TestMutable child : result.get(universe, children)) {
+            assertTrue(result.get(child, made) != null);
+        }
+        return result;
+    }
+
+    @Test
+    public void compactLayoutMemory() {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        Observed<TestMutable, String>            name                = Observed.of("name", null);
+        Observed<TestMutable, TestMutable>       peer                = Observed.of("peer", null);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Huge", value, name, peer);
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, new DclareConfig().withMaxTotalNrOfChanges(1000000000));
+        universeTransaction.put("init", () -> {
+            children.set(universe, Collection.range(0, HUGE_WIDTH).map(i -> TestMutable.of(i, clazz)).toSet());
+            for (TestMutable child : children.get(universe)) {
+                int id = (Integer) child.id();
+                value.set(child, id);
+                name.set(child, "n" + id);
+                peer.set(child, TestMutable.of((id + 1) % HUGE_WIDTH, clazz));
+            }
+        });
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        long            m0      = usedMemory();
+        CompactStateMap compact = timed("10^6 objects, compact slot layout", () -> CompactStateMap.of(result));
+        long            m1      = usedMemory();
+        StateMap        mapped  = timed("10^6 objects, default map layout", compact::toStateMap);
+        long            m2      = usedMemory();
+        System.err.printf("**** 10^6 objects, %6d MB default map layout, %6d MB compact slot layout%n", (m2 - m1) >> 20, (m1 - m0) >> 20);
+        assertEquals(result.size(), mapped.size());
+        assertEquals(HUGE_WIDTH, compact.getObjects().filter(TestMutable.class).size());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void constantContention() {
+        contended(new DclareConfig().withConstantStripes(1));
+        contended(new DclareConfig());
+        UniverseTransaction single  = timed("10^6 fresh constants, 1 stripe", () -> contended(new DclareConfig().withConstantStripes(1)));
+        UniverseTransaction striped = timed("10^6 fresh constants, default stripes", () -> contended(new DclareConfig()));
+        System.err.printf("**** constant contention, %d -> %d stripes%n", single.constantState().nrOfStripes(), striped.constantState().nrOfStripes());
+    }
+
+    private static UniverseTransaction contended(DclareConfig config) {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           total               = Observed.of("total", 0);
+        Constant<String, Integer>                length              = Constant.of("length", String::length);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Contended", total).observe(o -> {
+            int sum = 0;
+            for (int i = 0; i < FRESH_WIDTH; i++) {
+                sum += length.get(o.id() + ":" + i);
+            }
+            total.set(o, sum);
+        });
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, THE_POOL, config.withMaxTotalNrOfChanges(1000000000));
+        universeTransaction.put("init", () -> children.set(universe, Collection.range(0, FRESH_WIDTH).map(i -> TestMutable.of(i, clazz)).toSet()));
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        for (TestMutable child : result.get(universe, children)) {
+            assertTrue(result.get(child, total) > 0);
+        }
+        return universeTransaction;
+    }
+
+    private static State wide(ContextPool pool) {
+        Observed<TestUniverse, Set<TestMutable>> children            = Observed.of("children", Set.of(), containment);
+        Observed<TestMutable, Integer>           value               = Observed.of("value", 0);
+        Observed<TestMutable, Integer>           derived             = Observed.of("derived", 0);
+        TestUniverse                             universe            = TestUniverse.of("universe", TestMutableClass.of("Universe", children));
+        TestMutableClass                         clazz               = TestMutableClass.of("Wide", value, derived).observe(o -> derived.set(o, value.get(o) * 2));
+        UniverseTransaction                      universeTransaction = new UniverseTransaction(universe, pool, new DclareConfig().withMaxTotalNrOfChanges(1000000000));
+        universeTransaction.put("init", () -> children.set(universe, Collection.range(0, WIDE_WIDTH).map(i -> TestMutable.of(i, clazz)).toSet()));
+        for (int r = 1; r <= WIDE_ROUNDS; r++) {
+            int round = r;
+            universeTransaction.put("round" + r, () -> {
+                for (TestMutable child : children.get(universe)) {
+                    value.set(child, round);
+                }
+            });
+        }
+        universeTransaction.stop();
+        State result = assertDoesNotThrow(() -> universe.waitForEnd(universeTransaction));
+        printState(universeTransaction, result);
+        for (TestMutable child : result.get(universe, children)) {
+            assertEquals(WIDE_ROUNDS * 2, (int) result.get(child, derived));
+        }
+        return result;
+    }
+}
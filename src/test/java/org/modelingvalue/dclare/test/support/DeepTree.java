@@ -0,0 +1,75 @@
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+// (C) Copyright 2018-2023 Modeling Value Group B.V. (http://modelingvalue.org)                                        ~
+//                                                                                                                     ~
+// Licensed under the GNU Lesser General Public License v3.0 (the 'License'). You may not use this file except in      ~
+// compliance with the License. You may obtain a copy of the License at: https://choosealicense.com/licenses/lgpl-3.0  ~
+// Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on ~
+// an 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the  ~
+// specific language governing permissions and limitations under the License.                                          ~
+//                                                                                                                     ~
+// Maintainers:                                                                                                        ~
+//     Wim Bast, Tom Brus, Ronald Krijgsheld                                                                           ~
+// Contributors:                                                                                                       ~
+//     Arjan Kok, Carel Bast                                                                                           ~
+//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+package org.modelingvalue.dclare.test.support;
+
+import org.modelingvalue.collections.Collection;
+import org.modelingvalue.collections.List;
+import org.modelingvalue.collections.Set;
+import org.modelingvalue.dclare.Observed;
+import org.modelingvalue.dclare.SetableModifier;
+import org.modelingvalue.dclare.State;
+
+import static org.modelingvalue.dclare.SetableModifier.containment;
+
+/**
+ * A balanced containment tree with {@code fanout^depth} leafs under the universe, in which every
+ * node derives the total of its own value and the totals of its children.
+ */
+public class DeepTree {
+    public final Observed<TestUniverse, TestMutable>     root     = Observed.of("root", null, containment);
+    public final Observed<TestMutable, Set<TestMutable>> children = Observed.of("children", Set.of(), containment);
+    public final Observed<TestMutable, Integer>          value;
+    public final Observed<TestMutable, Integer>          total    = Observed.of("total", 0);
+    public final TestUniverse                            universe = TestUniverse.of("universe", TestMutableClass.of("Universe", root));
+    public final TestMutableClass                        clazz;
+    public final List<TestMutable>                       leafs;
+
+    private final int                                    fanout;
+
+    public DeepTree(int fanout, int depth, SetableModifier... valueModifiers) {
+        this.fanout = fanout;
+        this.value = Observed.of("value", 0, valueModifiers);
+        this.clazz = TestMutableClass.of("Node", children, value, total) //
+                .observe(n -> total.set(n, children.get(n).reduce(value.get(n), (a, c) -> a + total.get(c), Integer::sum)));
+        this.leafs = Collection.range(0, (int) Math.pow(fanout, depth)).map(i -> TestMutable.of("n" + i, clazz)).toList();
+    }
+
+    /**
+     * Builds the inner nodes bottom up and sets the top node as root of the universe. An inner node is
+     * identified by the size of the level below it and its index in its own level, like {@code "16.0"}.
+     * Must be called from an action.
+     */
+    public void build() {
+        List<TestMutable> level = leafs;
+        while (level.size() > 1) {
+            List<TestMutable> nodes = level;
+            level = Collection.range(0, nodes.size() / fanout).map(i -> {
+                TestMutable node = TestMutable.of(nodes.size() + "." + i, clazz);
+                children.set(node, nodes.sublist(i * fanout, (i + 1) * fanout).toSet());
+                return node;
+            }).toList();
+        }
+        root.set(universe, level.first());
+    }
+
+    public TestMutable node(String id) {
+        return TestMutable.of(id, clazz);
+    }
+
+    public int total(State state) {
+        return state.get(state.get(universe, root), total);
+    }
+}
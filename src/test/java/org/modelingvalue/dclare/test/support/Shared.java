@@ -17,10 +17,15 @@ package org.modelingvalue.dclare.test.support;
 
 import org.modelingvalue.collections.util.ContextThread;
 import org.modelingvalue.collections.util.ContextThread.ContextPool;
+import org.modelingvalue.collections.Map;
 import org.modelingvalue.collections.util.TraceTimer;
+import org.modelingvalue.dclare.IdCodec;
+import org.modelingvalue.dclare.Setable;
 import org.modelingvalue.dclare.State;
 import org.modelingvalue.dclare.UniverseTransaction;
 
+import java.util.function.Supplier;
+
 public class Shared {
 
     public static final boolean     PRINT_STATE = false;
@@ -51,6 +56,27 @@ public class Shared {
         }
     }
 
+    public static <T> T timed(String name, Supplier<T> supplier) {
+        long t0     = System.nanoTime();
+        T    result = supplier.get();
+        System.err.printf("**** %-56s %6d ms%n", name, (System.nanoTime() - t0) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * An {@link IdCodec} for the universe, the {@link TestMutable}s of one class with integer ids and the given setables.
+     */
+    @SuppressWarnings("rawtypes")
+    public static IdCodec codec(TestUniverse universe, TestMutableClass clazz, Setable... setables) {
+        Map<Object, Setable> byId = Map.of();
+        for (Setable setable : setables) {
+            byId = byId.put(setable.id(), setable);
+        }
+        Map<Object, Setable> ids = byId;
+        return IdCodec.of(o -> o == universe ? "U" : o instanceof TestMutable ? "M" + ((TestMutable) o).id() : o instanceof Setable && ids.containsKey(((Setable) o).id()) ? "S" + ((Setable) o).id() : null, //
+                id -> id.equals("U") ? universe : id.startsWith("M") ? TestMutable.of(Integer.valueOf(id.substring(1)), clazz) : ids.get(id.substring(1)));
+    }
+
     public static Throwable getCause(Throwable t) {
         while (t.getCause() != null) {
             t = t.getCause();